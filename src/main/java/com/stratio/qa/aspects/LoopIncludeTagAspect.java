@@ -24,23 +24,28 @@ import org.aspectj.lang.annotation.Pointcut;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Aspect
 public class LoopIncludeTagAspect {
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass().getCanonicalName());
 
+    private static final Map<String, List<String>> FEATURE_LINES = new ConcurrentHashMap<>();
+
+    private static final Map<List<Object>, String> EXPANDED_SCENARIOS = new ConcurrentHashMap<>();
+
     @Pointcut("execution (private * cucumber.runtime.model.FeatureParser.read(..)) &&" + "args (resource)")
     protected void featureBuilderRead(Resource resource) {
     }
@@ -87,7 +92,7 @@ public class LoopIncludeTagAspect {
         String scenarioName;
         String[] params;
         boolean marked = false;
-        String nwsource = "";
+        StringBuilder nwsource = new StringBuilder();
 
 
         for (int lineOriginalFeature = 0; lineOriginalFeature < lines.size(); lineOriginalFeature++) {
@@ -136,9 +141,9 @@ public class LoopIncludeTagAspect {
                 }
 
             }
-            nwsource += lines.get(lineOriginalFeature) + "\n";
+            nwsource.append(lines.get(lineOriginalFeature)).append("\n");
         }
-        return nwsource;
+        return nwsource.toString();
     }
 
     /**
@@ -182,81 +187,109 @@ public class LoopIncludeTagAspect {
     }
 
     public String doReplaceKeys(String parsedFeature, String[] params) throws IncludeException {
-        for (int i = 0; i < params.length; i++) {
-            //Scape '$' because it is a especial character
-            if (params[i + 1].startsWith("$")) {
-                params[i + 1] = "\\" + params[i + 1];
+        Map<String, String> replacements = new HashMap<>();
+        StringBuilder keys = new StringBuilder();
+        for (int i = 0; i < params.length; i += 2) {
+            if (replacements.putIfAbsent(params[i], params[i + 1]) == null) {
+                keys.append(keys.length() == 0 ? "" : "|").append(Pattern.quote(params[i]));
             }
-            parsedFeature = parsedFeature.replaceAll(params[i], params[i + 1]);
-            i++;
         }
-        if (parsedFeature.contains("<")) {
+        if (replacements.isEmpty()) {
+            return parsedFeature;
+        }
+
+        // all keys replaced in a single pass, values taken literally
+        Matcher matcher = Pattern.compile(keys.toString()).matcher(parsedFeature);
+        StringBuffer replaced = new StringBuffer(parsedFeature.length());
+        while (matcher.find()) {
+            matcher.appendReplacement(replaced, Matcher.quoteReplacement(replacements.get(matcher.group())));
+        }
+        matcher.appendTail(replaced);
+
+        if (replaced.indexOf("<") != -1) {
             throw new IncludeException("-> Error while parsing keys, check your params");
         }
-        return parsedFeature;
+        return replaced.toString();
     }
 
+    /**
+     * Expanded scenarios are cached by feature, scenario and params, as the same ones are usually included by many
+     * scenarios.
+     *
+     * @param feature      path of the included feature
+     * @param scenarioName scenario to include
+     * @param params       outline params (keys and values)
+     * @return String steps of the scenario
+     * @throws IncludeException exception
+     */
     public String featureStepConverter(String feature, String scenarioName, String[] params) throws IncludeException {
+        List<Object> key = Arrays.asList(feature, scenarioName, params == null ? null : Arrays.asList(params.clone()));
+        String parsedFeature = EXPANDED_SCENARIOS.get(key);
+        if (parsedFeature == null) {
+            parsedFeature = expandScenario(feature, scenarioName, params);
+            EXPANDED_SCENARIOS.put(key, parsedFeature);
+        }
+        return parsedFeature;
+    }
+
+    private String expandScenario(String feature, String scenarioName, String[] params) throws IncludeException {
         boolean scenarioexists = false;
-        BufferedReader bufferedFeature = null;
-        String parsedFeature = "";
+        StringBuilder parsedFeature = new StringBuilder();
         String sCurrentLine;
 
-
-        try {
-
-            bufferedFeature = new BufferedReader(new FileReader(feature));
-            while ((sCurrentLine = bufferedFeature.readLine()) != null) {
-                if (sCurrentLine.contains(scenarioName)) {
-                    scenarioexists = true;
-                    if (sCurrentLine.toUpperCase().contains("OUTLINE") && params == null) {
-                        throw new IncludeException("->  Parameters were not given for this scenario outline.");
-                    } else if (sCurrentLine.toUpperCase().contains("OUTLINE")) {
-                        BufferedReader auxBufferedFeature = bufferedFeature;
-                        String sParamline;
-                        while ((sParamline = auxBufferedFeature.readLine()) != null && !sParamline.toUpperCase().contains("SCENARIO")) {
-                            if (sParamline.contains("|")) {
-                                if (!checkParams(sParamline, params)) {
-                                    throw new IncludeException("-> Wrong number of parameters.");
-                                }
-                            } else if (!sParamline.toUpperCase().contains("EXAMPLES:")) {
-                                parsedFeature = parsedFeature + sParamline + "\n";
+        List<String> featureLines = readFeature(feature);
+        int next = 0;
+        while (next < featureLines.size()) {
+            sCurrentLine = featureLines.get(next++);
+            if (sCurrentLine.contains(scenarioName)) {
+                scenarioexists = true;
+                if (sCurrentLine.toUpperCase().contains("OUTLINE") && params == null) {
+                    throw new IncludeException("->  Parameters were not given for this scenario outline.");
+                } else if (sCurrentLine.toUpperCase().contains("OUTLINE")) {
+                    String sParamline;
+                    while (next < featureLines.size() && !(sParamline = featureLines.get(next++)).toUpperCase().contains("SCENARIO")) {
+                        if (sParamline.contains("|")) {
+                            if (!checkParams(sParamline, params)) {
+                                throw new IncludeException("-> Wrong number of parameters.");
                             }
-                        }
-                    } else if (!sCurrentLine.toUpperCase().contains("OUTLINE") && sCurrentLine.toUpperCase().contains("SCENARIO:")) {
-                        while ((sCurrentLine = bufferedFeature.readLine()) != null && !sCurrentLine.toUpperCase().contains("SCENARIO:") && !sCurrentLine.toUpperCase().contains("EXAMPLES:") && !sCurrentLine.matches("\\s*@[^{].+")) {
-                            parsedFeature = parsedFeature + sCurrentLine + "\n";
+                        } else if (!sParamline.toUpperCase().contains("EXAMPLES:")) {
+                            parsedFeature.append(sParamline).append("\n");
                         }
                     }
+                } else if (!sCurrentLine.toUpperCase().contains("OUTLINE") && sCurrentLine.toUpperCase().contains("SCENARIO:")) {
+                    while (next < featureLines.size() && !(sCurrentLine = featureLines.get(next++)).toUpperCase().contains("SCENARIO:") && !sCurrentLine.toUpperCase().contains("EXAMPLES:") && !sCurrentLine.matches("\\s*@[^{].+")) {
+                        parsedFeature.append(sCurrentLine).append("\n");
+                    }
                 }
             }
-            if (!scenarioexists) {
-                logger.warn("-> Scenario not present at the given feature: " + scenarioName);
-                throw new IncludeException("-> Scenario not present at the given feature: " + scenarioName);
-            }
-
-        } catch (FileNotFoundException e) {
-            logger.warn("-> Feature file were not found: " + feature);
-            throw new IncludeException("-> Feature file were not found: " + feature);
-        } catch (IOException e) {
-            logger.warn("-> An I/O error appeared [featureStepConverter].");
-            throw new IncludeException("-> An I/O error appeared.");
-        } finally {
-            try {
-                if (bufferedFeature != null) {
-                    bufferedFeature.close();
-                }
-            } catch (IOException ex) {
-                ex.printStackTrace();
-            }
+        }
+        if (!scenarioexists) {
+            logger.warn("-> Scenario not present at the given feature: " + scenarioName);
+            throw new IncludeException("-> Scenario not present at the given feature: " + scenarioName);
         }
 
         if (params != null) {
-            parsedFeature = doReplaceKeys(parsedFeature, params);
+            return doReplaceKeys(parsedFeature.toString(), params);
         }
 
-        return parsedFeature;
+        return parsedFeature.toString();
+    }
 
+    private List<String> readFeature(String feature) throws IncludeException {
+        List<String> featureLines = FEATURE_LINES.get(feature);
+        if (featureLines == null) {
+            try {
+                featureLines = Files.readAllLines(Paths.get(feature), StandardCharsets.UTF_8);
+            } catch (NoSuchFileException e) {
+                logger.warn("-> Feature file were not found: " + feature);
+                throw new IncludeException("-> Feature file were not found: " + feature);
+            } catch (IOException e) {
+                logger.warn("-> An I/O error appeared [featureStepConverter].");
+                throw new IncludeException("-> An I/O error appeared.");
+            }
+            FEATURE_LINES.put(feature, featureLines);
+        }
+        return featureLines;
     }
 
     public boolean checkParams(String sCurrentLine, String[] params) {
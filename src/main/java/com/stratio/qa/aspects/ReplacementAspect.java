@@ -50,8 +50,11 @@ import java.net.NetworkInterface;
 import java.net.SocketException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.aspectj.lang.annotation.After;
 import org.aspectj.lang.annotation.Aspect;
@@ -63,11 +66,23 @@ public class ReplacementAspect {
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass().getCanonicalName());
 
-    private Glue glue;
+    // Each runner (one per worker thread) loads its own glue
+    private final ThreadLocal<Glue> glue = new ThreadLocal<>();
 
-    private List<String> undefinedSteps = new ArrayList<>();
+    private List<String> undefinedSteps = Collections.synchronizedList(new ArrayList<String>());
 
-    private String lastEchoedStep = "";
+    // Step echoed by the scenario running in each thread
+    private final ThreadLocal<String> lastEchoedStep = ThreadLocal.withInitial(() -> "");
+
+    private static final int TEMPLATE_CACHE_SIZE = 10000;
+
+    private final Map<String, PlaceholderTemplate> templates = Collections.synchronizedMap(
+            new LinkedHashMap<String, PlaceholderTemplate>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PlaceholderTemplate> eldest) {
+                    return size() > TEMPLATE_CACHE_SIZE;
+                }
+            });
 
     @Pointcut("execution (cucumber.runner.Runner.new(..)) && "
             + "args (bus, backends, runtimeOptions)")
@@ -76,10 +91,11 @@ public class ReplacementAspect {
 
     @After(value = "runnerInit(bus, backends, runtimeOptions)")
     public void runnerInitGlue(JoinPoint jp, EventBus bus, Collection<? extends Backend> backends, RuntimeOptions runtimeOptions) throws Throwable {
-        glue = new Glue(bus);
+        Glue runnerGlue = new Glue(bus);
         for (Backend backend : backends) {
-            backend.loadGlue(glue, runtimeOptions.getGlue());
+            backend.loadGlue(runnerGlue, runtimeOptions.getGlue());
         }
+        glue.set(runnerGlue);
     }
 
     @Pointcut("execution (* cucumber.runtime.formatter.DefaultSummaryPrinter.printSnippets(..))")
@@ -90,8 +106,10 @@ public class ReplacementAspect {
     public void printSnippets(ProceedingJoinPoint pjp) throws Throwable {
         if (!undefinedSteps.isEmpty()) {
             logger.error("The following steps are undefined:");
-            for (String undefinedStep:undefinedSteps) {
-                logger.error("    {}", undefinedStep);
+            synchronized (undefinedSteps) {
+                for (String undefinedStep:undefinedSteps) {
+                    logger.error("    {}", undefinedStep);
+                }
             }
         }
     }
@@ -200,8 +218,8 @@ public class ReplacementAspect {
                     step = new PickleStep(step.getText(), argumentList, step.getLocations());
 
                     TestSourcesModelUtil.INSTANCE.getTestSourcesModel().addReplacedStep(scenario.getUri(), pickleTestStep.getStepLine(), step);
-                    lastEchoedStep = pickleTestStep.getStepText();
-                    if (HookGSpec.loggerEnabled) {
+                    lastEchoedStep.set(pickleTestStep.getStepText());
+                    if (HookGSpec.isLoggerEnabled()) {
                         logger.info("   {}{}", keyword, newName);
                         if (!sbDataTable.toString().isEmpty()) {
                             logger.info("  {}", sbDataTable.toString());
@@ -210,7 +228,7 @@ public class ReplacementAspect {
 
                     // Run step
                     try {
-                        StepDefinitionMatch definitionMatch = glue.stepDefinitionMatch(uri, step);
+                        StepDefinitionMatch definitionMatch = glue.get().stepDefinitionMatch(uri, step);
                         if (definitionMatch != null) {
                             if (!skipSteps) {
                                 definitionMatch.runStep(scenario);
@@ -222,8 +240,10 @@ public class ReplacementAspect {
                         } else {
                             logger.error("Undefined step!! {}", newName);
                             String undefinedStep = scenario.getUri() + " # " + newName;
-                            if (!undefinedSteps.contains(undefinedStep)) {
-                                undefinedSteps.add(undefinedStep);
+                            synchronized (undefinedSteps) {
+                                if (!undefinedSteps.contains(undefinedStep)) {
+                                    undefinedSteps.add(undefinedStep);
+                                }
                             }
                             return Type.UNDEFINED;
                         }
@@ -239,7 +259,37 @@ public class ReplacementAspect {
         return (Type) pjp.proceed();
     }
 
+    /**
+     * Replaces every placeholded element (${}, !{} and @{}) in the given text.
+     * <p>
+     * Texts are compiled once into a {@link PlaceholderTemplate} and cached, so later executions of the same
+     * step or datatable cell just resolve its placeholders and join the segments in a single pass. Texts whose
+     * placeholders are nested, or whose replaced values contain new placeholders, are resolved phase by phase.
+     *
+     * @param el element to be replaced
+     * @param jp JoinPoint
+     * @return String
+     * @throws NonReplaceableException exception
+     */
     protected String replacedElement(String el, JoinPoint jp) throws NonReplaceableException {
+        PlaceholderTemplate template = templates.get(el);
+        if (template == null) {
+            template = PlaceholderTemplate.compile(el);
+            templates.put(el, template);
+        }
+        if (template.isLiteral()) {
+            return el;
+        }
+        if (template.isSimple()) {
+            String newVal = evaluateTemplate(template, jp);
+            if (newVal != null) {
+                return newVal;
+            }
+        }
+        return replacedElementByPhases(el, jp);
+    }
+
+    private String replacedElementByPhases(String el, JoinPoint jp) throws NonReplaceableException {
         if (el.contains("${")) {
             el = replaceEnvironmentPlaceholders(el, jp);
         }
@@ -252,6 +302,58 @@ public class ReplacementAspect {
         return el;
     }
 
+    /**
+     * Resolves the placeholders of a compiled template, keeping the environment, reflection and code order
+     * used by {@link #replacedElementByPhases(String, JoinPoint)}.
+     *
+     * @param template compiled template
+     * @param jp JoinPoint
+     * @return replaced text, or null if the text must be resolved phase by phase
+     * @throws NonReplaceableException exception
+     */
+    private String evaluateTemplate(PlaceholderTemplate template, JoinPoint jp) throws NonReplaceableException {
+        String raw = template.getRaw();
+        List<PlaceholderTemplate.Segment> segments = template.getSegments();
+        String[] values = new String[segments.size()];
+        for (char phase : PlaceholderTemplate.PHASES) {
+            for (int i = 0; i < segments.size(); i++) {
+                PlaceholderTemplate.Segment segment = segments.get(i);
+                if (segment.getType() != phase) {
+                    continue;
+                }
+                String value;
+                switch (phase) {
+                    case PlaceholderTemplate.ENVIRONMENT:
+                        value = resolveEnvironmentPlaceholder(raw, segment.getText(), jp);
+                        break;
+                    case PlaceholderTemplate.REFLECTION:
+                        value = resolveReflectionPlaceholder(raw, segment.getText(), jp);
+                        break;
+                    default:
+                        value = resolveCodePlaceholder(raw, segment.getText(), jp);
+                }
+                if (value == null) {
+                    return null;
+                }
+                values[i] = value;
+            }
+        }
+
+        StringBuilder sb = new StringBuilder(raw.length());
+        for (int i = 0; i < segments.size(); i++) {
+            sb.append(values[i] != null ? values[i] : segments.get(i).getText());
+        }
+        String newVal = sb.toString();
+        if (PlaceholderTemplate.nextPlaceholder(newVal, 0) >= 0) {
+            return null;
+        }
+        // Allow setting empty string as default value
+        if (template.hasOnlyEnvironmentPlaceholders() && newVal.equalsIgnoreCase("\"\"")) {
+            newVal = "";
+        }
+        return newVal;
+    }
+
     /**
      * Replaces every placeholded element, enclosed in @{} with the
      * corresponding attribute value in local Common class
@@ -276,56 +378,57 @@ public class ReplacementAspect {
         String newVal = element;
         while (newVal.contains("@{")) {
             String placeholder = newVal.substring(newVal.indexOf("@{"), newVal.indexOf("}", newVal.indexOf("@{")) + 1);
-            String property = placeholder.substring(2, placeholder.length() - 1).toLowerCase();
-            String subproperty = "";
-            CommonG commonJson;
-            if (placeholder.contains(".")) {
-                property = placeholder.substring(2, placeholder.indexOf(".")).toLowerCase();
-                subproperty = placeholder.substring(placeholder.indexOf(".") + 1, placeholder.length() - 1);
+            String value = resolveCodePlaceholder(element, placeholder, pjp);
+            if (value == null) {
+                return newVal;
+            }
+            newVal = newVal.replace(placeholder, value);
+        }
+        return newVal;
+    }
+
+    private String resolveCodePlaceholder(String element, String placeholder, JoinPoint pjp) throws NonReplaceableException {
+        String property = placeholder.substring(2, placeholder.length() - 1).toLowerCase();
+        String subproperty = "";
+        CommonG commonJson;
+        if (placeholder.contains(".")) {
+            property = placeholder.substring(2, placeholder.indexOf(".")).toLowerCase();
+            subproperty = placeholder.substring(placeholder.indexOf(".") + 1, placeholder.length() - 1);
+        } else {
+            if (pjp.getThis() instanceof CucumberReporter.TestMethod) {
+                return null;
             } else {
-                if (pjp.getThis() instanceof CucumberReporter.TestMethod) {
-                    return newVal;
-                } else {
-                    logger.error("{} -> {} placeholded element has not been replaced previously.", element, property);
-                    throw new NonReplaceableException("Unreplaceable placeholder: " + placeholder);
-                }
+                logger.error("{} -> {} placeholded element has not been replaced previously.", element, property);
+                throw new NonReplaceableException("Unreplaceable placeholder: " + placeholder);
             }
+        }
 
-            switch (property) {
-                case "ip":
-                    boolean found = false;
-                    if (!subproperty.isEmpty()) {
-                        Enumeration<InetAddress> ifs = null;
-                        try {
-                            ifs = NetworkInterface.getByName(subproperty).getInetAddresses();
-                        } catch (SocketException e) {
-                            this.logger.error(e.getMessage());
-                        }
-                        while (ifs.hasMoreElements() && !found) {
-                            InetAddress itf = ifs.nextElement();
-                            if (itf instanceof Inet4Address) {
-                                String ip = itf.getHostAddress();
-                                newVal = newVal.replace(placeholder, ip);
-                                found = true;
-                            }
-                        }
+        switch (property) {
+            case "ip":
+                if (!subproperty.isEmpty()) {
+                    Enumeration<InetAddress> ifs = null;
+                    try {
+                        ifs = NetworkInterface.getByName(subproperty).getInetAddresses();
+                    } catch (SocketException e) {
+                        this.logger.error(e.getMessage());
                     }
-                    if (!found) {
-                        throw new NonReplaceableException("Interface " + subproperty + " not available");
+                    while (ifs.hasMoreElements()) {
+                        InetAddress itf = ifs.nextElement();
+                        if (itf instanceof Inet4Address) {
+                            return itf.getHostAddress();
+                        }
                     }
-                    break;
-                case "json":
-                case "file":
-                    commonJson = new CommonG();
-                    newVal = newVal.replace(placeholder, commonJson.retrieveData(subproperty, property));
-                    break;
-                default:
-                    commonJson = new CommonG();
-                    commonJson.getLogger().error("Replacement with an undefined option ({})", property);
-                    newVal = newVal.replace(placeholder, "");
-            }
+                }
+                throw new NonReplaceableException("Interface " + subproperty + " not available");
+            case "json":
+            case "file":
+                commonJson = new CommonG();
+                return commonJson.retrieveData(subproperty, property);
+            default:
+                commonJson = new CommonG();
+                commonJson.getLogger().error("Replacement with an undefined option ({})", property);
+                return "";
         }
-        return newVal;
     }
 
 
@@ -343,22 +446,29 @@ public class ReplacementAspect {
         while (newVal.contains("!{")) {
             String placeholder = newVal.substring(newVal.indexOf("!{"),
                     newVal.indexOf("}", newVal.indexOf("!{")) + 1);
-            String attribute = placeholder.substring(2, placeholder.length() - 1);
-            // we want to use value previously saved
-            String prop = ThreadProperty.get(attribute);
-
-            if (prop == null && (pjp.getThis() instanceof CucumberReporter.TestMethod)) {
+            String prop = resolveReflectionPlaceholder(element, placeholder, pjp);
+            if (prop == null) {
                 return element;
-            } else if (prop == null) {
-                logger.error("{} -> {} local var has not been saved correctly previously.", element, attribute);
-                throw new NonReplaceableException("Unreplaceable placeholder: " + placeholder);
-            } else {
-                newVal = newVal.replace(placeholder, prop);
             }
+            newVal = newVal.replace(placeholder, prop);
         }
         return newVal;
     }
 
+    private String resolveReflectionPlaceholder(String element, String placeholder, JoinPoint pjp) throws NonReplaceableException {
+        String attribute = placeholder.substring(2, placeholder.length() - 1);
+        // we want to use value previously saved
+        String prop = ThreadProperty.get(attribute);
+
+        if (prop == null && (pjp.getThis() instanceof CucumberReporter.TestMethod)) {
+            return null;
+        } else if (prop == null) {
+            logger.error("{} -> {} local var has not been saved correctly previously.", element, attribute);
+            throw new NonReplaceableException("Unreplaceable placeholder: " + placeholder);
+        }
+        return prop;
+    }
+
 
     /**
      * Replaces every placeholded element, enclosed in ${} with the
@@ -374,74 +484,190 @@ public class ReplacementAspect {
         while (newVal.contains("${")) {
             String placeholder = newVal.substring(newVal.indexOf("${"),
                     newVal.indexOf("}", newVal.indexOf("${")) + 1);
-            String modifier = "";
-            String sysProp;
-            String defaultValue = "";
-            String prop;
-            String placeholderAux = "";
-            Boolean emptyDefault = false;
+            String prop = resolveEnvironmentPlaceholder(element, placeholder, jp);
+            if (prop == null) {
+                return element;
+            }
+            newVal = newVal.replace(placeholder, prop);
+        }
 
-            if (placeholder.contains(":-")) {
-                defaultValue = placeholder.substring(placeholder.indexOf(":-") + 2, placeholder.length() - 1);
-                if ("''".equals(defaultValue)) {
-                    emptyDefault = true;
-                    defaultValue = "";
-                }
-                placeholderAux = placeholder.substring(0, placeholder.indexOf(":-")) + "}";
+        // Allow setting empty string as default value
+        if (newVal.equalsIgnoreCase("\"\"")) {
+            newVal = "";
+        }
+        return newVal;
+    }
+
+    private String resolveEnvironmentPlaceholder(String element, String placeholder, JoinPoint jp) throws NonReplaceableException {
+        String modifier = "";
+        String sysProp;
+        String defaultValue = "";
+        String prop;
+        String placeholderAux = "";
+        Boolean emptyDefault = false;
+
+        if (placeholder.contains(":-")) {
+            defaultValue = placeholder.substring(placeholder.indexOf(":-") + 2, placeholder.length() - 1);
+            if ("''".equals(defaultValue)) {
+                emptyDefault = true;
+                defaultValue = "";
             }
+            placeholderAux = placeholder.substring(0, placeholder.indexOf(":-")) + "}";
+        }
 
-            if (placeholderAux.contains(".")) {
-                if (placeholder.contains(":-")) {
-                    sysProp = placeholderAux.substring(2, placeholderAux.indexOf("."));
-                    modifier = placeholderAux.substring(placeholderAux.indexOf(".") + 1, placeholderAux.length() - 1);
-                } else {
-                    sysProp = placeholder.substring(2, placeholder.indexOf("."));
+        if (placeholderAux.contains(".")) {
+            if (placeholder.contains(":-")) {
+                sysProp = placeholderAux.substring(2, placeholderAux.indexOf("."));
+                modifier = placeholderAux.substring(placeholderAux.indexOf(".") + 1, placeholderAux.length() - 1);
+            } else {
+                sysProp = placeholder.substring(2, placeholder.indexOf("."));
+                modifier = placeholder.substring(placeholder.indexOf(".") + 1, placeholder.length() - 1);
+            }
+        } else {
+            if (defaultValue.isEmpty() && !emptyDefault) {
+                if (placeholder.contains(".")) {
                     modifier = placeholder.substring(placeholder.indexOf(".") + 1, placeholder.length() - 1);
+                    sysProp = placeholder.substring(2, placeholder.indexOf("."));
+                } else {
+                    sysProp = placeholder.substring(2, placeholder.length() - 1);
                 }
             } else {
-                if (defaultValue.isEmpty() && !emptyDefault) {
-                    if (placeholder.contains(".")) {
-                        modifier = placeholder.substring(placeholder.indexOf(".") + 1, placeholder.length() - 1);
-                        sysProp = placeholder.substring(2, placeholder.indexOf("."));
-                    } else {
-                        sysProp = placeholder.substring(2, placeholder.length() - 1);
-                    }
-                } else {
-                    sysProp = placeholder.substring(2, placeholder.indexOf(":-"));
+                sysProp = placeholder.substring(2, placeholder.indexOf(":-"));
+            }
+        }
+
+        if (defaultValue.isEmpty()) {
+            if (emptyDefault) {
+                prop = System.getProperty(sysProp, defaultValue);
+            } else {
+                prop = System.getProperty(sysProp);
+            }
+
+        } else {
+            prop = System.getProperty(sysProp, defaultValue);
+        }
+
+        if (prop == null && (jp.getThis() instanceof CucumberReporter.TestMethod)) {
+            return null;
+        } else if (prop == null) {
+            logger.error("{} -> {} env var has not been defined.", element, sysProp);
+            throw new NonReplaceableException("Unreplaceable placeholder: " + placeholder);
+        }
+
+        if ("toLower".equals(modifier)) {
+            prop = prop.toLowerCase();
+        } else if ("toUpper".equals(modifier)) {
+            prop = prop.toUpperCase();
+        }
+        return prop;
+    }
+
+    /**
+     * Step text or datatable cell split into literal and placeholder segments.
+     * <p>
+     * A placeholder spans from its opening mark to the first closing brace, as in the phase by phase replacement.
+     * Templates whose placeholders contain other placeholders, or are not closed, are flagged as not simple.
+     */
+    static final class PlaceholderTemplate {
+
+        static final char LITERAL = ' ';
+
+        static final char ENVIRONMENT = '$';
+
+        static final char REFLECTION = '!';
+
+        static final char CODE = '@';
+
+        static final char[] PHASES = {ENVIRONMENT, REFLECTION, CODE};
+
+        private final String raw;
+
+        private final List<Segment> segments;
+
+        private final boolean simple;
+
+        private PlaceholderTemplate(String raw, List<Segment> segments, boolean simple) {
+            this.raw = raw;
+            this.segments = segments;
+            this.simple = simple;
+        }
+
+        static PlaceholderTemplate compile(String raw) {
+            List<Segment> segments = new ArrayList<>();
+            int pos = 0;
+            int start;
+            while ((start = nextPlaceholder(raw, pos)) >= 0) {
+                int end = raw.indexOf('}', start);
+                if (end < 0 || nextPlaceholder(raw.substring(start + 1, end), 0) >= 0) {
+                    return new PlaceholderTemplate(raw, Collections.<Segment>emptyList(), false);
                 }
+                if (start > pos) {
+                    segments.add(new Segment(LITERAL, raw.substring(pos, start)));
+                }
+                segments.add(new Segment(raw.charAt(start), raw.substring(start, end + 1)));
+                pos = end + 1;
+            }
+            if (pos < raw.length() && !segments.isEmpty()) {
+                segments.add(new Segment(LITERAL, raw.substring(pos)));
             }
+            return new PlaceholderTemplate(raw, segments, true);
+        }
 
-            if (defaultValue.isEmpty()) {
-                if (emptyDefault) {
-                    prop = System.getProperty(sysProp, defaultValue);
-                } else {
-                    prop = System.getProperty(sysProp);
+        static int nextPlaceholder(String text, int from) {
+            int idx = text.indexOf('{', from + 1);
+            while (idx > 0) {
+                char mark = text.charAt(idx - 1);
+                if (mark == ENVIRONMENT || mark == REFLECTION || mark == CODE) {
+                    return idx - 1;
                 }
+                idx = text.indexOf('{', idx + 1);
+            }
+            return -1;
+        }
 
-            } else {
-                prop = System.getProperty(sysProp, defaultValue);
+        String getRaw() {
+            return raw;
+        }
+
+        List<Segment> getSegments() {
+            return segments;
+        }
+
+        boolean isSimple() {
+            return simple;
+        }
+
+        boolean isLiteral() {
+            return simple && segments.isEmpty();
+        }
+
+        boolean hasOnlyEnvironmentPlaceholders() {
+            for (Segment segment : segments) {
+                if (segment.getType() == REFLECTION || segment.getType() == CODE) {
+                    return false;
+                }
             }
+            return true;
+        }
 
-            if (prop == null && (jp.getThis() instanceof CucumberReporter.TestMethod)) {
-                return element;
-            } else if (prop == null) {
-                logger.error("{} -> {} env var has not been defined.", element, sysProp);
-                throw new NonReplaceableException("Unreplaceable placeholder: " + placeholder);
+        static final class Segment {
+
+            private final char type;
+
+            private final String text;
+
+            Segment(char type, String text) {
+                this.type = type;
+                this.text = text;
             }
 
-            if ("toLower".equals(modifier)) {
-                prop = prop.toLowerCase();
-            } else if ("toUpper".equals(modifier)) {
-                prop = prop.toUpperCase();
+            char getType() {
+                return type;
             }
-            newVal = newVal.replace(placeholder, prop);
-        }
 
-        // Allow setting empty string as default value
-        if (newVal.equalsIgnoreCase("\"\"")) {
-            newVal = "";
+            String getText() {
+                return text;
+            }
         }
-        return newVal;
     }
 }
-
@@ -29,6 +29,8 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 @Aspect
@@ -36,6 +38,14 @@ public class RunOnTagAspect {
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass().getCanonicalName());
 
+    private static final Pattern VERSION = Pattern.compile("^[[[0-9]+.]+[0-9]+][-[[0-9]+.]+[0-9]+]*");
+
+    private static final Pattern INVALID_VERSION_SUFFIX = Pattern.compile("-(SNAPSHOT|[a-zA-Z0-9]{7}|M[1-9]|RC[1-9])[0-9]");
+
+    private static final Pattern VERSION_SUFFIX = Pattern.compile("-(SNAPSHOT|[a-zA-Z0-9]{7}|M[1-9]|RC[1-9])");
+
+    private final Map<String, Condition> conditions = new ConcurrentHashMap<>();
+
     @Pointcut("execution (* cucumber.runner.Runner.runPickle(..)) && "
             + "args (pickleEvent)")
     protected void AddRunOnTagPointcutScenario(PickleEvent pickleEvent) {
@@ -91,13 +101,13 @@ public class RunOnTagAspect {
         PickleLocation pickleLocation = new PickleLocation(line, 0);
         for (PickleTag tag : tags) {
             if (tag.getName().contains("@runOnEnv")) {
-                if (!checkParams(getParams(tag.getName()))) {
+                if (!compile(tag.getName()).evaluate()) {
                     tags.add(new PickleTag(pickleLocation, "@ignore"));
                     tags.add(new PickleTag(pickleLocation, "@envCondition"));
                     return true;
                 }
             } else if (tag.getName().contains("@skipOnEnv")) {
-                if (checkParams(getParams(tag.getName()))) {
+                if (compile(tag.getName()).evaluate()) {
                     tags.add(new PickleTag(pickleLocation, "@ignore"));
                     tags.add(new PickleTag(pickleLocation, "@envCondition"));
                     return true;
@@ -141,137 +151,120 @@ public class RunOnTagAspect {
         return result;
     }
 
+    /*
+     * Returns the compiled condition of a tag, parsing it only the first time it is seen
+     */
+    private Condition compile(String tag) throws Exception {
+        Condition condition = conditions.get(tag);
+        if (condition == null) {
+            condition = compile(getParams(tag));
+            conditions.put(tag, condition);
+        }
+        return condition;
+    }
+
+    private Condition compile(String[][] params) throws Exception {
+        if ("".equals(params[0][0])) {
+            throw new Exception("Error while parsing params. Params must be at least one");
+        }
+        Operand[] operands = new Operand[params[0].length];
+        for (int i = 0; i < operands.length; i++) {
+            operands[i] = new Operand(params[0][i]);
+        }
+        return new Condition(operands, params[1]);
+    }
+
    /*
     * Checks if every param in the array of strings is defined
     */
     public boolean checkParams(String[][] params) throws Exception {
-        if ("".equals(params[0][0])) {
-            throw new Exception("Error while parsing params. Params must be at least one");
-        }
+        return compile(params).evaluate();
+    }
 
-        boolean result = true;
-        // Primer elemento
-        if (params[0][0].contains("=")) {
-            result = firstElementOperator(params[0][0], "=");
-        } else if (params[0][0].contains(">")) {
-            result = firstElementOperator(params[0][0], ">");
-        } else if (params[0][0].contains("<")) {
-            result = firstElementOperator(params[0][0], "<");
-        } else {
-            if (System.getProperty(params[0][0], "").isEmpty() && ThreadProperty.get(params[0][0]) == null) {
-                result = false;
-            }
-        }
+    /*
+     * Conditions are evaluated left to right, without precedence: ((a op b) op c)...
+     * Operands that cannot change the result (false && x, true || x) are not evaluated.
+     */
+    private final class Condition {
 
-        // Elementos intermedios
-        for (int j = 1; j < params[0].length - 1; j++) {
-            if (params[0][j].contains("=")) {
-                result = elementOperator(params[0][j], "=", params[1], j - 1, result);
-            } else if (params[0][j].contains(">")) {
-                result = elementOperator(params[0][j], ">", params[1], j - 1, result);
-            } else if (params[0][j].contains("<")) {
-                result = elementOperator(params[0][j], "<", params[1], j - 1, result);
-            } else {
-                if (System.getProperty(params[0][j], "").isEmpty() && ThreadProperty.get(params[0][j]) == null) {
-                    result = updateResultOperation(params[1], j - 1, result, false);
-                } else {
-                    result = updateResultOperation(params[1], j - 1, result, true);
-                }
+        private final Operand[] operands;
 
+        private final boolean[] and;
+
+        private Condition(Operand[] operands, String[] ops) {
+            this.operands = operands;
+            this.and = new boolean[operands.length];
+            for (int i = 1; i < operands.length; i++) {
+                and[i] = ops.length == 0 || "&&".equals(ops[i - 1]);
             }
         }
 
-        // Último elemento
-        if (params[0].length > 1) {
-            if (params[0][params[0].length - 1].contains("=")) {
-                result = elementOperator(params[0][params[0].length - 1], "=", params[1], params[1].length - 1, result);
-            } else if (params[0][params[0].length - 1].contains(">")) {
-                result = elementOperator(params[0][params[0].length - 1], ">", params[1], params[1].length - 1, result);
-            } else if (params[0][params[0].length - 1].contains("<")) {
-                result = elementOperator(params[0][params[0].length - 1], "<", params[1], params[1].length - 1, result);
-            } else {
-                if (System.getProperty(params[0][params[0].length - 1], "").isEmpty() && ThreadProperty.get(params[0][params[0].length - 1]) == null) {
-                    result = updateResultOperation(params[1], params[1].length - 1, result, false);
-                } else {
-                    result = updateResultOperation(params[1], params[1].length - 1, result, true);
+        private boolean evaluate() throws Exception {
+            boolean result = operands[0].evaluate();
+            for (int i = 1; i < operands.length; i++) {
+                if (and[i] == result) {
+                    result = operands[i].evaluate();
                 }
             }
+            return result;
         }
-        return result;
     }
 
-    private boolean firstElementOperator(String element, String operador) throws Exception {
-        boolean result = true;
-        String param = element.split(operador)[0];
-        String value = element.split(operador)[1];
-        String property = System.getProperty(param) != null ? System.getProperty(param, "") : ThreadProperty.get(param) != null ? ThreadProperty.get(param) : "";
-        if (property.isEmpty()) {
-            result = false;
-        } else if (value.contains(".") && property.contains(".")) {
-            if (!checkVersion(operador.charAt(0), param, value)) {
-                result = false;
-            }
-        } else if (operador.equals("=") && !value.equals(property)) {
-            result = false;
-        } else if (operador.equals(">") && !(property.compareTo(value) > 0)) {
-            result = false;
-        } else if (operador.equals("<") && !(property.compareTo(value) < 0)) {
-            result = false;
-        }
-        return result;
-    }
+    /*
+     * A param that must be defined, or a param compared (=, > or <) with a value
+     */
+    private final class Operand {
 
-    private boolean elementOperator(String element, String operador, String[] operations, int posop, boolean result) throws Exception {
-        boolean res = result;
-        String param = element.split(operador)[0];
-        String value = element.split(operador)[1];
-        String property = System.getProperty(param) != null ? System.getProperty(param, "") : ThreadProperty.get(param) != null ? ThreadProperty.get(param) : "";
-        if (property.isEmpty()) {
-            res =  updateResultOperation(operations, posop, result, false);
-        } else if (value.contains(".") && property.contains(".")) {
-            if (!checkVersion(operador.charAt(0), param, value)) {
-                res =  updateResultOperation(operations, posop, result, false);
-            } else {
-                res =  updateResultOperation(operations, posop, result, true);
+        private final String param;
+
+        private final char operator;
+
+        private final String value;
+
+        private Operand(String element) {
+            char op = 0;
+            if (element.contains("=")) {
+                op = '=';
+            } else if (element.contains(">")) {
+                op = '>';
+            } else if (element.contains("<")) {
+                op = '<';
             }
-        } else if (operador.equals("=")) {
-            if (!value.equals(property)) {
-                res =  updateResultOperation(operations, posop, result, false);
+            this.operator = op;
+            if (op == 0) {
+                this.param = element;
+                this.value = null;
             } else {
-                res =  updateResultOperation(operations, posop, result, true);
+                String[] parts = element.split(String.valueOf(op));
+                this.param = parts[0];
+                this.value = parts[1];
             }
-        } else if (operador.equals(">")) {
-            if (!(property.compareTo(value) > 0)) {
-                res =  updateResultOperation(operations, posop, result, false);
-            } else {
-                res =  updateResultOperation(operations, posop, result, true);
+        }
+
+        private boolean evaluate() throws Exception {
+            if (operator == 0) {
+                return !System.getProperty(param, "").isEmpty() || ThreadProperty.get(param) != null;
             }
-        } else if (operador.equals("<")) {
-            if (!(property.compareTo(value) < 0)) {
-                res =  updateResultOperation(operations, posop, result, false);
+            String property = System.getProperty(param) != null ? System.getProperty(param, "") : ThreadProperty.get(param) != null ? ThreadProperty.get(param) : "";
+            if (property.isEmpty()) {
+                return false;
+            } else if (value.contains(".") && property.contains(".")) {
+                return checkVersion(operator, param, value);
+            } else if (operator == '=') {
+                return value.equals(property);
+            } else if (operator == '>') {
+                return property.compareTo(value) > 0;
             } else {
-                res =  updateResultOperation(operations, posop, result, true);
+                return property.compareTo(value) < 0;
             }
         }
-        return res;
-    }
-
-    private boolean updateResultOperation (String[] param, int pos, boolean result, boolean valor) throws Exception {
-        if (param.length == 0) {
-            return result && valor;
-        } else if ("&&".equals(param[pos])) {
-            return result && valor;
-        } else {
-            return result || valor;
-        }
     }
 
     private boolean checkVersion(char operador, String param, String value) throws Exception {
         boolean result = true;
-        String regexp = "^[[[0-9]+.]+[0-9]+][-[[0-9]+.]+[0-9]+]*";
         String property = System.getProperty(param) != null ? System.getProperty(param, "") : ThreadProperty.get(param) != null ? ThreadProperty.get(param) : "";
-        String envVarValue = property.replaceAll("-(SNAPSHOT|[a-zA-Z0-9]{7}|M[1-9]|RC[1-9])[0-9]", "error").replaceAll("-(SNAPSHOT|[a-zA-Z0-9]{7}|M[1-9]|RC[1-9])", "");
-        if (!Pattern.matches(regexp, envVarValue) || !Pattern.matches(regexp, value)) {
+        String envVarValue = VERSION_SUFFIX.matcher(INVALID_VERSION_SUFFIX.matcher(property).replaceAll("error")).replaceAll("");
+        if (!VERSION.matcher(envVarValue).matches() || !VERSION.matcher(value).matches()) {
             throw new Exception("Error while parsing params. The versions have some characters that are not numbers, '.' or '-' or an invalid format");
         } else if (operador == '=') {
             if (value.contains("-") || envVarValue.contains("-")) {
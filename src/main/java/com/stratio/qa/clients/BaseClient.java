@@ -18,7 +18,9 @@ package com.stratio.qa.clients;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.ning.http.client.AsyncHandler;
 import com.ning.http.client.AsyncHttpClient;
+import com.ning.http.client.ListenableFuture;
 import com.ning.http.client.Param;
 import com.ning.http.client.Response;
 import com.stratio.qa.models.BaseResponse;
@@ -136,6 +138,25 @@ public class BaseClient {
         return response;
     }
 
+    /**
+     * Sends a GET request whose response is processed by the handler as it is received, without timeout
+     *
+     * @param endpoint url
+     * @param headers  request headers
+     * @param handler  response handler
+     * @return response future
+     */
+    protected <T> ListenableFuture<T> getStream(String endpoint, Map<String, String> headers, AsyncHandler<T> handler) {
+        AsyncHttpClient.BoundRequestBuilder request = this.httpClient.prepareGet(endpoint);
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            request = request.setHeader(header.getKey(), header.getValue());
+        }
+        request = request.setCookies(commonG.getCookies());
+        request = request.setRequestTimeout(-1);
+        this.log.debug("GET stream to " + endpoint);
+        return request.execute(handler);
+    }
+
     protected Response post(String endpoint, String data) throws Exception {
         AsyncHttpClient.BoundRequestBuilder request = this.httpClient.preparePost(endpoint);
         request = request.setHeader("Content-Type", "application/json; charset=UTF-8");
@@ -17,6 +17,8 @@
 package com.stratio.qa.clients.k8s;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.stratio.qa.specs.CommandExecutionSpec;
 import com.stratio.qa.specs.CommonG;
 import com.stratio.qa.utils.ThreadProperty;
@@ -27,9 +29,15 @@ import io.fabric8.kubernetes.api.model.extensions.Ingress;
 import io.fabric8.kubernetes.api.model.rbac.*;
 import io.fabric8.kubernetes.client.Config;
 import io.fabric8.kubernetes.client.DefaultKubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
 import io.fabric8.kubernetes.client.LocalPortForward;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.dsl.BytesLimitTerminateTimeTailPrettyLoggable;
 import io.fabric8.kubernetes.client.dsl.ExecListener;
 import io.fabric8.kubernetes.client.dsl.ExecWatch;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
+import io.fabric8.kubernetes.client.dsl.LogWatch;
 import io.fabric8.kubernetes.client.dsl.base.CustomResourceDefinitionContext;
 import io.fabric8.kubernetes.client.extended.run.RunConfigBuilder;
 import io.fabric8.kubernetes.client.internal.SerializationUtils;
@@ -42,12 +50,16 @@ import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 public class KubernetesClient {
@@ -66,6 +78,11 @@ public class KubernetesClient {
 
     private static final Logger logger = LoggerFactory.getLogger(KubernetesClient.class);
 
+    /**
+     * Min time between watches when a watch is closed by the server before the condition is matched
+     */
+    private static final long WATCH_RETRY_MILLIS = 1000;
+
     public static KubernetesClient getInstance() {
         if (CLIENT == null) {
             CLIENT = new KubernetesClient();
@@ -314,6 +331,208 @@ public class KubernetesClient {
         return k8sClient.apps().deployments().inNamespace(namespace).withName(deploymentName).get();
     }
 
+    /**
+     * Wait until the pod matches the condition, watching its changes
+     *
+     * @param podName Pod name
+     * @param namespace Namespace
+     * @param condition Condition to match (pod is null while it does not exist)
+     * @param timeout Timeout in seconds
+     * @return Pod object
+     * @throws IllegalArgumentException if the condition is not matched before the timeout
+     */
+    public Pod waitForPod(String podName, String namespace, Predicate<Pod> condition, long timeout) throws InterruptedException {
+        return k8sClient.pods().inNamespace(namespace).withName(podName).waitUntilCondition(condition, timeout, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Wait until the pods with the labels match the condition, watching their changes
+     *
+     * @param selector Label filter (separated by comma)
+     * @param namespace Namespace
+     * @param condition Condition to match
+     * @param timeout Timeout in seconds
+     * @return Pods matching the labels
+     * @throws IllegalArgumentException if the condition is not matched before the timeout
+     */
+    public List<Pod> waitForPodsFilteredByLabel(String selector, String namespace, Predicate<Collection<Pod>> condition, long timeout) throws InterruptedException {
+        FilterWatchListDeletable<Pod, PodList, Boolean, Watch> pods = namespace != null ?
+                k8sClient.pods().inNamespace(namespace).withLabelSelector(getLabelSelector(selector)) :
+                k8sClient.pods().inAnyNamespace().withLabelSelector(getLabelSelector(selector));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeout);
+        while (true) {
+            PodList podList = pods.list();
+            Map<String, Pod> current = new HashMap<>();
+            for (Pod pod : podList.getItems()) {
+                current.put(pod.getMetadata().getNamespace() + "/" + pod.getMetadata().getName(), pod);
+            }
+            if (condition.test(current.values())) {
+                return new ArrayList<>(current.values());
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new IllegalArgumentException("Pods with labels " + selector + " matching condition not found!");
+            }
+            // counted down when the condition is matched or the watch is closed
+            CountDownLatch changed = new CountDownLatch(1);
+            AtomicBoolean closed = new AtomicBoolean(false);
+            // the watch starts from the listed version, so no change is lost between the list and the watch
+            ListOptions options = new ListOptionsBuilder().withResourceVersion(podList.getMetadata().getResourceVersion()).build();
+            Watch watch = pods.watch(options, new Watcher<Pod>() {
+                @Override
+                public void eventReceived(Action action, Pod pod) {
+                    synchronized (current) {
+                        String key = pod.getMetadata().getNamespace() + "/" + pod.getMetadata().getName();
+                        if (action == Action.DELETED) {
+                            current.remove(key);
+                        } else {
+                            current.put(key, pod);
+                        }
+                        if (condition.test(current.values())) {
+                            changed.countDown();
+                        }
+                    }
+                }
+
+                @Override
+                public void onClose(KubernetesClientException cause) {
+                    if (cause != null) {
+                        logger.debug("Pods watch closed, watching again: {}", cause.getMessage());
+                    }
+                    closed.set(true);
+                    changed.countDown();
+                }
+            });
+            try {
+                changed.await(remaining, TimeUnit.NANOSECONDS);
+            } finally {
+                watch.close();
+            }
+            synchronized (current) {
+                if (condition.test(current.values())) {
+                    return new ArrayList<>(current.values());
+                }
+            }
+            // the watch was closed or timed out: list again, from a fresh version, while there is time left
+            pauseBeforeWatchingAgain(closed.get(), deadline);
+        }
+    }
+
+    /**
+     * Wait until the deployment matches the condition, watching its changes
+     *
+     * @param deploymentName Deployment name
+     * @param namespace Namespace
+     * @param condition Condition to match (deployment is null while it does not exist)
+     * @param timeout Timeout in seconds
+     * @return Deployment object
+     * @throws IllegalArgumentException if the condition is not matched before the timeout
+     */
+    public Deployment waitForDeployment(String deploymentName, String namespace, Predicate<Deployment> condition, long timeout) throws InterruptedException {
+        return k8sClient.apps().deployments().inNamespace(namespace).withName(deploymentName).waitUntilCondition(condition, timeout, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Wait until the statefulset matches the condition, watching its changes
+     *
+     * @param name Statefulset name
+     * @param namespace Namespace
+     * @param condition Condition to match (statefulset is null while it does not exist)
+     * @param timeout Timeout in seconds
+     * @return Statefulset object
+     * @throws IllegalArgumentException if the condition is not matched before the timeout
+     */
+    public StatefulSet waitForStateFulSet(String name, String namespace, Predicate<StatefulSet> condition, long timeout) throws InterruptedException {
+        return k8sClient.apps().statefulSets().inNamespace(namespace).withName(name).waitUntilCondition(condition, timeout, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Wait until the custom resource matches the condition, watching its changes
+     *
+     * @param name customresourcedefinition name (ex:pgclusters.postgres.stratio.com)
+     * @param nameItem pgcluster name
+     * @param namespace Namespace
+     * @param condition Condition to match (custom resource is null while it does not exist)
+     * @param timeout Timeout in seconds
+     * @throws IllegalArgumentException if the condition is not matched before the timeout
+     */
+    public void waitForCustomResource(String name, String nameItem, String namespace, Predicate<Map<String, Object>> condition, long timeout) throws InterruptedException, IOException {
+        CustomResourceDefinition crd = k8sClient.customResourceDefinitions().withName(name).get();
+        CustomResourceDefinitionContext crdContext = CustomResourceDefinitionContext.fromCrd(crd);
+        ObjectMapper mapper = new ObjectMapper();
+        TypeReference<Map<String, Object>> resourceType = new TypeReference<Map<String, Object>>() { };
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeout);
+        while (true) {
+            Map<String, Object> current = null;
+            Map<String, Object> list = k8sClient.customResource(crdContext).list(namespace);
+            for (Map<String, Object> customResource : mapper.convertValue(list.get("items"), new TypeReference<List<Map<String, Object>>>() { })) {
+                if (nameItem.equals(mapper.convertValue(customResource.get("metadata"), ObjectMeta.class).getName())) {
+                    current = customResource;
+                }
+            }
+            if (condition.test(current)) {
+                return;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new IllegalArgumentException("Custom resource " + nameItem + " matching condition not found!");
+            }
+            ListOptions options = new ListOptionsBuilder()
+                    .withResourceVersion(mapper.convertValue(list.get("metadata"), ListMeta.class).getResourceVersion())
+                    .build();
+            // counted down when the condition is matched or the watch is closed
+            CountDownLatch changed = new CountDownLatch(1);
+            AtomicBoolean matched = new AtomicBoolean(false);
+            AtomicBoolean closed = new AtomicBoolean(false);
+            Watch watch = k8sClient.customResource(crdContext).watch(namespace, nameItem, null, options, new Watcher<String>() {
+                @Override
+                public void eventReceived(Action action, String resource) {
+                    try {
+                        if (condition.test(action == Action.DELETED ? null : mapper.readValue(resource, resourceType))) {
+                            matched.set(true);
+                            changed.countDown();
+                        }
+                    } catch (IOException e) {
+                        logger.warn("Error reading custom resource {}: {}", nameItem, e.getMessage());
+                    }
+                }
+
+                @Override
+                public void onClose(KubernetesClientException cause) {
+                    if (cause != null) {
+                        logger.debug("Custom resource watch closed, watching again: {}", cause.getMessage());
+                    }
+                    closed.set(true);
+                    changed.countDown();
+                }
+            });
+            try {
+                changed.await(remaining, TimeUnit.NANOSECONDS);
+            } finally {
+                watch.close();
+            }
+            if (matched.get()) {
+                return;
+            }
+            // the watch was closed or timed out: list again, from a fresh version, while there is time left
+            pauseBeforeWatchingAgain(closed.get(), deadline);
+        }
+    }
+
+    /**
+     * Waits before listing and watching again if the watch was closed, so a server closing watches right away does not
+     * make the wait list in a tight loop
+     *
+     * @param closed true if the watch was closed
+     * @param deadline deadline of the wait, in System.nanoTime() units
+     */
+    private void pauseBeforeWatchingAgain(boolean closed, long deadline) throws InterruptedException {
+        long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (closed && remaining > 0) {
+            Thread.sleep(Math.min(remaining, WATCH_RETRY_MILLIS));
+        }
+    }
+
     /**
      * kubectl describe pod
      *
@@ -443,19 +662,37 @@ public class KubernetesClient {
         CustomResourceDefinitionContext crdContext = CustomResourceDefinitionContext.fromCrd(crd);
 
         Map<String, Object> list = k8sClient.customResource(crdContext).list(namespace);
-        List<Map<String, Object>> items = (List<Map<String, Object>>) list.get("items");
-        StringBuilder result = new StringBuilder();
+        ObjectMapper mapper = new ObjectMapper();
+        List<Map<String, Object>> items = mapper.convertValue(list.get("items"), new TypeReference<List<Map<String, Object>>>() { });
         Integer replicas = 0;
         for (Map<String, Object> customResource : items) {
-            Map<String, Object> metadata = (Map<String, Object>) customResource.get("metadata");
-            Map<String, Object> status = (Map<String, Object>) customResource.get("status");
+            Map<String, Object> metadata = mapper.convertValue(customResource.get("metadata"), new TypeReference<Map<String, Object>>() { });
+            Map<String, Object> status = mapper.convertValue(customResource.get("status"), new TypeReference<Map<String, Object>>() { });
             if (metadata.get("name").equals(nameItem)) {
-                return Integer.valueOf(result.append(status.get("readyInstances")).toString().split("/")[0]);
+                Integer readyInstances = parseReadyInstances(status == null ? null : status.get("readyInstances"));
+                return readyInstances == null ? replicas : readyInstances;
             }
         }
         return replicas;
     }
 
+    /**
+     * Ready instances of a custom resource status
+     *
+     * @param readyInstances readyInstances field of the status (ex: 2/3)
+     * @return ready instances, null if the field is missing or it is not a number
+     */
+    public static Integer parseReadyInstances(Object readyInstances) {
+        if (readyInstances == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(readyInstances.toString().split("/")[0].trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
     /**
      * Using a custom resource
      *
@@ -579,6 +816,34 @@ public class KubernetesClient {
         return k8sClient.pods().inNamespace(namespace).withName(pod).getLog();
     }
 
+    /**
+     * kubectl logs pod --timestamps --since-time=sinceTime
+     * <p>
+     * The log is read line by line as it is downloaded instead of as a whole String.
+     *
+     * @param pod Pod name
+     * @param namespace Namespace
+     * @param sinceTime RFC3339 timestamp to read the log from (second precision, so some lines can be read again), null to read the whole log
+     * @param lineListener receives every line without its timestamp, returns false to stop reading
+     * @return timestamp of the last line read, to be used as sinceTime of the next call
+     * @throws IOException
+     */
+    public String getPodLog(String pod, String namespace, String sinceTime, Predicate<String> lineListener) throws IOException {
+        String lastTimestamp = sinceTime;
+        BytesLimitTerminateTimeTailPrettyLoggable<String, LogWatch> podLog = k8sClient.pods().inNamespace(namespace).withName(pod).usingTimestamps();
+        try (BufferedReader reader = new BufferedReader(sinceTime != null ? podLog.sinceTime(sinceTime).getLogReader() : podLog.getLogReader())) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.indexOf(' ');
+                lastTimestamp = separator != -1 ? line.substring(0, separator) : line;
+                if (!lineListener.test(separator != -1 ? line.substring(separator + 1) : "")) {
+                    break;
+                }
+            }
+        }
+        return lastTimestamp;
+    }
+
     /**
      * kubectl exec mypod -- command
      * @param pod Pod
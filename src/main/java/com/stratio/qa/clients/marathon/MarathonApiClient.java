@@ -23,6 +23,12 @@ import com.stratio.qa.models.marathon.*;
 import com.stratio.qa.specs.CommonG;
 import com.stratio.qa.utils.ThreadProperty;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
 public class MarathonApiClient extends BaseClient {
 
     private static MarathonApiClient CLIENT;
@@ -100,4 +106,25 @@ public class MarathonApiClient extends BaseClient {
         return map(response, DeploymentResult.class);
     }
 
+    /**
+     * Subscribes to the Marathon event bus
+     *
+     * @param eventTypes    types of events to receive, all if empty
+     * @param listener      receives every event, in the http client thread
+     * @param closeListener called once when the stream is closed, can be null
+     * @return event stream, to be closed when no more events are needed
+     */
+    public MarathonEventStream subscribeToEvents(List<String> eventTypes, Consumer<MarathonEventStream.Event> listener, Runnable closeListener) {
+        String url = "https://".concat(ThreadProperty.get("EOS_ACCESS_POINT")).concat(":" + getPort()).concat("/marathon/v2/events");
+        if (!eventTypes.isEmpty()) {
+            url = url.concat(eventTypes.stream().map(type -> "event_type=" + type).collect(Collectors.joining("&", "?", "")));
+        }
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Accept", "text/event-stream");
+
+        MarathonEventStream stream = new MarathonEventStream(listener, closeListener);
+        stream.setFuture(getStream(url, headers, stream));
+        return stream;
+    }
+
 }
@@ -0,0 +1,244 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.clients.marathon;
+
+import com.ning.http.client.AsyncHandler;
+import com.ning.http.client.HttpResponseBodyPart;
+import com.ning.http.client.HttpResponseHeaders;
+import com.ning.http.client.HttpResponseStatus;
+import com.ning.http.client.ListenableFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Subscription to the Marathon event bus (/v2/events server-sent events).
+ * <p>
+ * Events are parsed as they are received and passed to the listener in the http client thread, so the listener must
+ * not block. The listener is not called anymore once the stream is closed, either by the server or by close.
+ */
+public class MarathonEventStream implements AsyncHandler<Void>, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MarathonEventStream.class);
+
+    private static final int HTTP_OK = 200;
+
+    private final Consumer<Event> listener;
+
+    private final Runnable closeListener;
+
+    private final CountDownLatch connected = new CountDownLatch(1);
+
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+    private final StringBuilder data = new StringBuilder();
+
+    private String eventType;
+
+    private volatile ListenableFuture<Void> future;
+
+    private volatile boolean open = false;
+
+    private volatile boolean closed = false;
+
+    /**
+     * @param listener      receives every event
+     * @param closeListener called once when the stream is closed, can be null
+     */
+    public MarathonEventStream(Consumer<Event> listener, Runnable closeListener) {
+        this.listener = listener;
+        this.closeListener = closeListener;
+    }
+
+    void setFuture(ListenableFuture<Void> future) {
+        this.future = future;
+        if (closed) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * Waits for the server to accept the subscription.
+     *
+     * @param timeoutMillis max time to wait
+     * @return true if the stream is receiving events, false if it was rejected, closed or timed out
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitConnected(long timeoutMillis) throws InterruptedException {
+        connected.await(timeoutMillis, TimeUnit.MILLISECONDS);
+        return isOpen();
+    }
+
+    /**
+     * @return true if the subscription was accepted and the stream has not been closed
+     */
+    public boolean isOpen() {
+        return open && !closed;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        ListenableFuture<Void> f = future;
+        if (f != null) {
+            f.cancel(true);
+        }
+        finish();
+    }
+
+    @Override
+    public STATE onStatusReceived(HttpResponseStatus status) {
+        if (status.getStatusCode() != HTTP_OK) {
+            LOGGER.debug("Marathon event stream rejected with status code {}", status.getStatusCode());
+            finish();
+            return STATE.ABORT;
+        }
+        open = true;
+        connected.countDown();
+        return closed ? STATE.ABORT : STATE.CONTINUE;
+    }
+
+    @Override
+    public STATE onHeadersReceived(HttpResponseHeaders headers) {
+        return closed ? STATE.ABORT : STATE.CONTINUE;
+    }
+
+    @Override
+    public STATE onBodyPartReceived(HttpResponseBodyPart bodyPart) {
+        if (closed) {
+            return STATE.ABORT;
+        }
+        onData(bodyPart.getBodyPartBytes());
+        return STATE.CONTINUE;
+    }
+
+    @Override
+    public void onThrowable(Throwable t) {
+        if (!closed) {
+            LOGGER.debug("Marathon event stream closed: {}", t.getMessage());
+        }
+        finish();
+    }
+
+    @Override
+    public Void onCompleted() {
+        finish();
+        return null;
+    }
+
+    /**
+     * Parses received bytes, dispatching the events completed by them
+     *
+     * @param bytes bytes received from the server
+     */
+    synchronized void onData(byte[] bytes) {
+        for (byte b : bytes) {
+            if (b == '\n') {
+                onLine(new String(line.toByteArray(), StandardCharsets.UTF_8));
+                line.reset();
+            } else if (b != '\r') {
+                line.write(b);
+            }
+        }
+    }
+
+    private void onLine(String text) {
+        if (text.isEmpty()) {
+            if (data.length() > 0 && !closed) {
+                listener.accept(new Event(eventType == null ? "message" : eventType, data.toString()));
+            }
+            eventType = null;
+            data.setLength(0);
+            return;
+        }
+        int colon = text.indexOf(':');
+        String field = colon < 0 ? text : text.substring(0, colon);
+        String value = colon < 0 ? "" : text.substring(colon + 1);
+        if (value.startsWith(" ")) {
+            value = value.substring(1);
+        }
+        switch (field) {
+            case "event":
+                eventType = value;
+                break;
+            case "data":
+                if (data.length() > 0) {
+                    data.append('\n');
+                }
+                data.append(value);
+                break;
+            default:
+                // comments (empty field), id and retry are not used
+                break;
+        }
+    }
+
+    private void finish() {
+        boolean wasClosed;
+        synchronized (this) {
+            wasClosed = closed;
+            closed = true;
+        }
+        connected.countDown();
+        if (!wasClosed && closeListener != null) {
+            closeListener.run();
+        }
+    }
+
+    /**
+     * Event received from Marathon: its type and json data
+     */
+    public static class Event {
+
+        private final String eventType;
+
+        private final String data;
+
+        public Event(String eventType, String data) {
+            this.eventType = eventType;
+            this.data = data;
+        }
+
+        public String getEventType() {
+            return eventType;
+        }
+
+        public String getData() {
+            return data;
+        }
+
+        /**
+         * Cheap check, without parsing the data, of whether the event refers to an app
+         *
+         * @param appId app id, with or without leading slash
+         * @return true if the app id is one of the strings of the data
+         */
+        public boolean refersTo(String appId) {
+            String id = appId.startsWith("/") ? appId : "/" + appId;
+            return data.contains("\"" + id + "\"");
+        }
+    }
+}
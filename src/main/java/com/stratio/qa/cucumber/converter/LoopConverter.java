@@ -21,37 +21,70 @@ import gherkin.events.PickleEvent;
 import gherkin.pickles.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class LoopConverter {
+
+    private static final Pattern LOOP = Pattern.compile("\\s*@LOOP.*");
+
+    private static final Pattern PROGLOOP = Pattern.compile("\\s*@PROGLOOP.*");
+
+    private static final Pattern MULTILOOP = Pattern.compile("\\s*@MULTILOOP.*");
+
+    /**
+     * Expands a scenario with loop tags into all its scenarios.
+     *
+     * @param pe scenario
+     * @return expanded scenarios
+     * @see #expandPickleEventWithLoopTags(PickleEvent)
+     */
     public static List<PickleEvent> transformPickleEventWithLoopTags(PickleEvent pe) {
         List<PickleEvent> pickleEventList = new ArrayList<>();
+        expandPickleEventWithLoopTags(pe).forEachRemaining(pickleEventList::add);
+        return pickleEventList;
+    }
+
+    /**
+     * Expands a scenario with loop tags. Scenarios are generated lazily, when the iterator reaches them, so
+     * loops (i.e. a @multiloop cartesian product) are never fully built in memory.
+     *
+     * @param pe scenario
+     * @return iterator over the expanded scenarios (just pe if it has no loop tags or they expand to no scenarios)
+     */
+    public static Iterator<PickleEvent> expandPickleEventWithLoopTags(PickleEvent pe) {
         for (PickleTag pickleTag : pe.pickle.getTags()) {
+            String tagName = pickleTag.getName().toUpperCase();
             // Loop
-            if (pickleTag.getName().toUpperCase().matches("\\s*@LOOP.*")) {
-                transformLoop(pe, pickleTag, pickleEventList);
-                break;
+            if (LOOP.matcher(tagName).matches()) {
+                return orOriginal(pe, transformLoop(pe, pickleTag));
             }
             // ProgLoop
-            if (pickleTag.getName().toUpperCase().matches("\\s*@PROGLOOP.*")) {
-                transformProgLoop(pe, pickleTag, pickleEventList);
-                break;
+            if (PROGLOOP.matcher(tagName).matches()) {
+                return orOriginal(pe, transformProgLoop(pe, pickleTag));
             }
             // MultiLoop
-            if (pickleTag.getName().toUpperCase().matches("\\s*@MULTILOOP.*")) {
-                transformMultiLoop(pe, pickleTag, pickleEventList);
-                break;
+            if (MULTILOOP.matcher(tagName).matches()) {
+                return orOriginal(pe, transformMultiLoop(pe, pickleTag));
             }
         }
-        if (pickleEventList.isEmpty()) {
-            pickleEventList.add(pe);
-        }
-        return pickleEventList;
+        return Collections.singletonList(pe).iterator();
     }
 
-    private static void transformLoop(PickleEvent pe, PickleTag pickleTag, List<PickleEvent> pickleEventList) {
+    private static Iterator<PickleEvent> orOriginal(PickleEvent pe, Iterator<PickleEvent> pickleEvents) {
+        return pickleEvents.hasNext() ? pickleEvents : Collections.singletonList(pe).iterator();
+    }
+
+    private static Iterator<PickleEvent> transformLoop(PickleEvent pe, PickleTag pickleTag) {
         String listParams = pickleTag.getName().substring((pickleTag.getName().lastIndexOf("(") + 1), (pickleTag.getName().length()) - 1).split(",")[0];
         try {
             String value = System.getProperty(listParams, ThreadProperty.get(listParams));
@@ -60,25 +93,13 @@ public class LoopConverter {
             }
             String[] elems = value.split(",");
             String paramReplace = pickleTag.getName().substring((pickleTag.getName().lastIndexOf("(") + 1), (pickleTag.getName().length()) - 1).split(",")[1];
-            int numElem = 0;
-            for (String elem : elems) {
-                pickleEventList.add(generatePickleEvent(elem, numElem, paramReplace, pe.uri, pe.pickle.getName(), pe.pickle.getLanguage(), pe.pickle.getSteps(), pe.pickle.getTags(), pe.pickle.getLocations()));
-                numElem++;
-            }
+            return loop(pe, elems, paramReplace);
         } catch (Exception e) {
-            String message = e.getMessage();
-            if (!message.contains("@errorMessage")) {
-                message = "@errorMessage(" + message.replaceAll(" ", "__") + ".)";
-            }
-            List<PickleTag> pickleTagList = pe.pickle.getTags();
-            pickleTagList.add(new PickleTag(pe.pickle.getLocations().get(0), "@error"));
-            pickleTagList.add(new PickleTag(pe.pickle.getLocations().get(0), message));
-            Pickle pickle = new Pickle(pe.pickle.getName(), pe.pickle.getLanguage(), pe.pickle.getSteps(), pickleTagList, pe.pickle.getLocations());
-            pickleEventList.add(new PickleEvent(pe.uri, pickle));
+            return errorPickleEvent(pe, e.getMessage());
         }
     }
 
-    private static void transformProgLoop(PickleEvent pe, PickleTag pickleTag, List<PickleEvent> pickleEventList) {
+    private static Iterator<PickleEvent> transformProgLoop(PickleEvent pe, PickleTag pickleTag) {
         String listParams = pickleTag.getName().substring((pickleTag.getName().lastIndexOf("(") + 1), (pickleTag.getName().length()) - 1).split(",")[0];
         try {
             String elem = System.getProperty(listParams, ThreadProperty.get(listParams));
@@ -94,29 +115,18 @@ public class LoopConverter {
                     elems[i - 1] = i.toString();
                 }
                 String paramReplace = pickleTag.getName().substring((pickleTag.getName().lastIndexOf("(") + 1), (pickleTag.getName().length()) - 1).split(",")[1];
-                int numElem = 0;
-                for (String elemAux : elems) {
-                    pickleEventList.add(generatePickleEvent(elemAux, numElem, paramReplace, pe.uri, pe.pickle.getName(), pe.pickle.getLanguage(), pe.pickle.getSteps(), pe.pickle.getTags(), pe.pickle.getLocations()));
-                    numElem++;
-                }
+                return loop(pe, elems, paramReplace);
             }
         } catch (Exception e) {
             String message = e.getMessage();
             if (e instanceof NumberFormatException) {
                 message = "@errorMessage(Variable__" + listParams + "__is__not__an__integer.)";
             }
-            if (!message.contains("@errorMessage")) {
-                message = "@errorMessage(" + message.replaceAll(" ", "__") + ".)";
-            }
-            List<PickleTag> pickleTagList = pe.pickle.getTags();
-            pickleTagList.add(new PickleTag(pe.pickle.getLocations().get(0), "@error"));
-            pickleTagList.add(new PickleTag(pe.pickle.getLocations().get(0), message));
-            Pickle pickle = new Pickle(pe.pickle.getName(), pe.pickle.getLanguage(), pe.pickle.getSteps(), pickleTagList, pe.pickle.getLocations());
-            pickleEventList.add(new PickleEvent(pe.uri, pickle));
+            return errorPickleEvent(pe, message);
         }
     }
 
-    private static void transformMultiLoop(PickleEvent pe, PickleTag pickleTag, List<PickleEvent> pickleEventList) {
+    private static Iterator<PickleEvent> transformMultiLoop(PickleEvent pe, PickleTag pickleTag) {
         Map<String, String[]> params = new HashMap<>();
         String[] elements = pickleTag.getName().substring((pickleTag.getName().lastIndexOf("(") + 1), (pickleTag.getName().length()) - 1).split(",");
         try {
@@ -135,88 +145,89 @@ public class LoopConverter {
                 params.put(paramName, elems);
             }
             String[] keys = params.keySet().toArray(new String[params.keySet().size()]);
+            String[][] keyValues = new String[keys.length][];
+            String[] placeholders = new String[keys.length];
             int numScenarios = 1;
-            for (String key : keys) {
-                numScenarios = numScenarios * params.get(key).length;
-            }
-            List<String[]> replacedValues = new ArrayList<>();
-            for (int i = 0; i < numScenarios; i++) {
-                replacedValues.add(new String[keys.length]);
+            for (int i = 0; i < keys.length; i++) {
+                keyValues[i] = params.get(keys[i]);
+                placeholders[i] = "<" + keys[i] + ">";
+                numScenarios = numScenarios * keyValues[i].length;
             }
+            Pattern pattern = placeholdersPattern(params.keySet());
 
-            int numRepetitions = 0;
-            for (int i = 0; i < keys.length; i++) {
-                String key = keys[i];
-                String[] keyValues = params.get(key);
-                int j = 0;
-                int index = 0;
-                while (j < numScenarios) {
-                    int totalAdded = 0;
-                    do {
-                        String[] replacedValuesAux = replacedValues.get(j);
-                        replacedValuesAux[i] = keyValues[index % keyValues.length];
-                        replacedValues.set(j, replacedValuesAux);
-                        j++;
-                        totalAdded++;
-                    }
-                    while (totalAdded < numRepetitions);
-                    index++;
-                }
-                if (numRepetitions == 0) {
-                    numRepetitions = keyValues.length;
-                } else {
-                    numRepetitions = numRepetitions * keyValues.length;
+            // first key changes on every scenario, second one every len(first) scenarios and so on
+            return lazily(numScenarios, scenario -> {
+                Map<String, String> values = new HashMap<>();
+                int repetitions = 1;
+                for (int i = 0; i < keys.length; i++) {
+                    values.put(placeholders[i], keyValues[i][(scenario / repetitions) % keyValues[i].length]);
+                    repetitions = repetitions * keyValues[i].length;
                 }
-            }
-            for (String[] values : replacedValues) {
-                pickleEventList.add(generatePickleEvent(keys, values, pe.uri, pe.pickle.getName(), pe.pickle.getLanguage(), pe.pickle.getSteps(), pe.pickle.getTags(), pe.pickle.getLocations()));
-            }
+                return generatePickleEvent(pe, new Replacer(pattern, values));
+            });
         } catch (Exception e) {
-            String message = e.getMessage();
-            if (!message.contains("@errorMessage")) {
-                message = "@errorMessage(" + message.replaceAll(" ", "__") + ".)";
+            return errorPickleEvent(pe, e.getMessage());
+        }
+    }
+
+    private static Iterator<PickleEvent> loop(PickleEvent pe, String[] elems, String paramReplace) {
+        Pattern pattern = placeholdersPattern(Arrays.asList(paramReplace, paramReplace + ".id"));
+        return lazily(elems.length, numElem -> {
+            Map<String, String> values = new HashMap<>();
+            values.put("<" + paramReplace + ">", elems[numElem]);
+            values.put("<" + paramReplace + ".id>", String.valueOf(numElem));
+            return generatePickleEvent(pe, new Replacer(pattern, values));
+        });
+    }
+
+    private static Iterator<PickleEvent> lazily(int size, IntFunction<PickleEvent> generator) {
+        return new Iterator<PickleEvent>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
             }
-            List<PickleTag> pickleTagList = pe.pickle.getTags();
-            pickleTagList.add(new PickleTag(pe.pickle.getLocations().get(0), "@error"));
-            pickleTagList.add(new PickleTag(pe.pickle.getLocations().get(0), message));
-            Pickle pickle = new Pickle(pe.pickle.getName(), pe.pickle.getLanguage(), pe.pickle.getSteps(), pickleTagList, pe.pickle.getLocations());
-            pickleEventList.add(new PickleEvent(pe.uri, pickle));
+
+            @Override
+            public PickleEvent next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return generator.apply(next++);
+            }
+        };
+    }
+
+    private static Iterator<PickleEvent> errorPickleEvent(PickleEvent pe, String message) {
+        if (!message.contains("@errorMessage")) {
+            message = "@errorMessage(" + message.replaceAll(" ", "__") + ".)";
         }
+        List<PickleTag> pickleTagList = pe.pickle.getTags();
+        pickleTagList.add(new PickleTag(pe.pickle.getLocations().get(0), "@error"));
+        pickleTagList.add(new PickleTag(pe.pickle.getLocations().get(0), message));
+        Pickle pickle = new Pickle(pe.pickle.getName(), pe.pickle.getLanguage(), pe.pickle.getSteps(), pickleTagList, pe.pickle.getLocations());
+        return Collections.singletonList(new PickleEvent(pe.uri, pickle)).iterator();
     }
 
-    private static PickleEvent generatePickleEvent(String elem, int numElem, String paramReplace, String uri, String name, String language, List<PickleStep> steps, List<PickleTag> tags, List<PickleLocation> locations) {
-        List<PickleStep> newSteps = new ArrayList<>();
-        for (PickleStep step : steps) {
-            String newStepText = step.getText().replaceAll("<" + paramReplace + ">", elem).replaceAll("<" + paramReplace + ".id>", String.valueOf(numElem));
-            List<Argument> argumentListReplaced = replaceArguments("<" + paramReplace + ">", elem, step.getArgument());
-            argumentListReplaced = replaceArguments("<" + paramReplace + ".id>", elem, argumentListReplaced);
-            newSteps.add(new PickleStep(newStepText, argumentListReplaced, step.getLocations()));
+    private static Pattern placeholdersPattern(Collection<String> params) {
+        StringBuilder regex = new StringBuilder();
+        for (String param : params) {
+            regex.append(regex.length() == 0 ? "" : "|").append(Pattern.quote("<" + param + ">"));
         }
-        String newScenarioname = name.replaceAll("<" + paramReplace + ">", elem).replaceAll("<" + paramReplace + ".id>", String.valueOf(numElem));
-        Pickle pickle = new Pickle(newScenarioname, language, newSteps, tags, locations);
-        return new PickleEvent(uri, pickle);
+        return Pattern.compile(regex.toString());
     }
 
-    private static PickleEvent generatePickleEvent(String[] keys, String[] values, String uri, String name, String language, List<PickleStep> steps, List<PickleTag> tags, List<PickleLocation> locations) {
+    private static PickleEvent generatePickleEvent(PickleEvent pe, Replacer replacer) {
         List<PickleStep> newSteps = new ArrayList<>();
-        for (PickleStep step : steps) {
-            String newStepText = step.getText();
-            List<Argument> argumentListReplaced = step.getArgument();
-            for (int i = 0; i < keys.length; i++) {
-                newStepText = newStepText.replaceAll("<" + keys[i] + ">", values[i]);
-                argumentListReplaced = replaceArguments("<" + keys[i] + ">", values[i], argumentListReplaced);
-            }
-            newSteps.add(new PickleStep(newStepText, argumentListReplaced, step.getLocations()));
-        }
-        String newScenarioname = name;
-        for (int i = 0; i < keys.length; i++) {
-            newScenarioname = newScenarioname.replaceAll("<" + keys[i] + ">", values[i]);
+        for (PickleStep step : pe.pickle.getSteps()) {
+            newSteps.add(new PickleStep(replacer.replace(step.getText()), replaceArguments(replacer, step.getArgument()), step.getLocations()));
         }
-        Pickle pickle = new Pickle(newScenarioname, language, newSteps, tags, locations);
-        return new PickleEvent(uri, pickle);
+        Pickle pickle = new Pickle(replacer.replace(pe.pickle.getName()), pe.pickle.getLanguage(), newSteps, pe.pickle.getTags(), pe.pickle.getLocations());
+        return new PickleEvent(pe.uri, pickle);
     }
 
-    private static List<Argument> replaceArguments(String textToReplace, String textReplaced, List<Argument> argumentsList) {
+    private static List<Argument> replaceArguments(Replacer replacer, List<Argument> argumentsList) {
         List<Argument> argumentListReplaced = new ArrayList<>();
         for (Argument argument : argumentsList) {
             if (argument instanceof PickleTable) {
@@ -227,7 +238,10 @@ public class LoopConverter {
                     List<PickleCell> pickleCellList = new ArrayList<>(pickleRow.getCells());
                     for (int c = 0; c < pickleCellList.size(); c++) {
                         PickleCell pickleCell = pickleCellList.get(c);
-                        pickleCellList.set(c, new PickleCell(pickleCell.getLocation(), pickleCell.getValue().replaceAll(textToReplace, textReplaced)));
+                        String value = replacer.replace(pickleCell.getValue());
+                        if (value != pickleCell.getValue()) {
+                            pickleCellList.set(c, new PickleCell(pickleCell.getLocation(), value));
+                        }
                     }
                     pickleRowList.set(r, new PickleRow(pickleCellList));
                 }
@@ -239,4 +253,35 @@ public class LoopConverter {
         }
         return argumentListReplaced;
     }
+
+    /**
+     * Replaces all the placeholders of a text in a single pass. Values are taken literally.
+     */
+    private static final class Replacer {
+
+        private final Pattern pattern;
+
+        private final Map<String, String> values;
+
+        private Replacer(Pattern pattern, Map<String, String> values) {
+            this.pattern = pattern;
+            this.values = values;
+        }
+
+        /**
+         * @return text replaced, or the same instance if it had no placeholders
+         */
+        private String replace(String text) {
+            Matcher matcher = pattern.matcher(text);
+            if (!matcher.find()) {
+                return text;
+            }
+            StringBuffer replaced = new StringBuffer(text.length());
+            do {
+                matcher.appendReplacement(replaced, Matcher.quoteReplacement(values.get(matcher.group())));
+            } while (matcher.find());
+            matcher.appendTail(replaced);
+            return replaced.toString();
+        }
+    }
 }
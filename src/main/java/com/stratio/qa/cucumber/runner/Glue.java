@@ -27,16 +27,26 @@ import gherkin.pickles.PickleStep;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
 public final class Glue implements cucumber.runtime.Glue {
+    private static final int STEP_TEXT_CACHE_SIZE = 4096;
+
     final Map<String, StepDefinition> stepDefinitionsByPattern = new TreeMap<>();
 
-    final Map<String, StepDefinition> stepDefinitionsByStepText = new HashMap<>();
+    final Map<String, StepDefinition> stepDefinitionsByStepText = new LinkedHashMap<String, StepDefinition>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, StepDefinition> eldest) {
+            return size() > STEP_TEXT_CACHE_SIZE;
+        }
+    };
+
+    private StepDefinitionIndex stepDefinitionIndex;
 
     final List<HookDefinition> beforeHooks = new ArrayList<>();
 
@@ -59,6 +69,7 @@ public final class Glue implements cucumber.runtime.Glue {
             throw new DuplicateStepDefinitionException(previous, stepDefinition);
         }
         stepDefinitionsByPattern.put(stepDefinition.getPattern(), stepDefinition);
+        stepDefinitionIndex = null;
         // Custom glue, we don't send StepDefinedEvent to bus
         //bus.send(new StepDefinedEvent(bus.getTime(), bus.getTimeMillis(), stepDefinition));
     }
@@ -132,13 +143,20 @@ public final class Glue implements cucumber.runtime.Glue {
     }
 
     private List<PickleStepDefinitionMatch> stepDefinitionMatches(String featurePath, PickleStep step) {
+        if (stepDefinitionIndex == null) {
+            stepDefinitionIndex = new StepDefinitionIndex(stepDefinitionsByPattern.values());
+        }
         List<PickleStepDefinitionMatch> result = new ArrayList<PickleStepDefinitionMatch>();
-        for (StepDefinition stepDefinition : stepDefinitionsByPattern.values()) {
+        // Only the step definitions whose literal prefix matches the step text can match it
+        for (StepDefinition stepDefinition : stepDefinitionIndex.candidates(step.getText())) {
             List<Argument> arguments = stepDefinition.matchedArguments(step);
             if (arguments != null) {
                 result.add(new PickleStepDefinitionMatch(arguments, stepDefinition, featurePath, step));
             }
         }
+        if (result.size() > 1) {
+            result.sort(Comparator.comparing(match -> match.getStepDefinition().getPattern()));
+        }
         return result;
     }
 
@@ -156,6 +174,7 @@ public final class Glue implements cucumber.runtime.Glue {
         removeScenarioScopedHooks(afterStepHooks);
         removeScenariosScopedStepDefinitions(stepDefinitionsByPattern);
         removeScenariosScopedStepDefinitions(stepDefinitionsByStepText);
+        stepDefinitionIndex = null;
     }
 
     private void removeScenarioScopedHooks(List<HookDefinition> beforeHooks) {
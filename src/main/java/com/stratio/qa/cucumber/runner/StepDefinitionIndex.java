@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.cucumber.runner;
+
+import cucumber.runtime.StepDefinition;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Literal-prefix trie over step definition patterns.
+ * <p>
+ * Every pattern is stored under the literal text it must start with, so only the step definitions whose
+ * prefix is a prefix of the step text have to be matched against it. Patterns without a safe literal
+ * prefix (top-level alternations, leading groups...) are stored in the root node and are always candidates.
+ */
+final class StepDefinitionIndex {
+
+    private static final String SPECIAL_CHARS = "\\^$.|?*+()[]{}/";
+
+    private final Node root = new Node();
+
+    StepDefinitionIndex(Collection<StepDefinition> stepDefinitions) {
+        for (StepDefinition stepDefinition : stepDefinitions) {
+            add(stepDefinition);
+        }
+    }
+
+    private void add(StepDefinition stepDefinition) {
+        String prefix = literalPrefix(stepDefinition.getPattern());
+        Node node = root;
+        for (int i = 0; i < prefix.length(); i++) {
+            Character c = prefix.charAt(i);
+            Node child = node.children.get(c);
+            if (child == null) {
+                child = new Node();
+                node.children.put(c, child);
+            }
+            node = child;
+        }
+        node.stepDefinitions.add(stepDefinition);
+    }
+
+    /**
+     * Returns the step definitions whose literal prefix is a prefix of the given step text.
+     *
+     * @param stepText step text
+     * @return candidate step definitions
+     */
+    List<StepDefinition> candidates(String stepText) {
+        List<StepDefinition> result = new ArrayList<>(root.stepDefinitions);
+        Node node = root;
+        for (int i = 0; i < stepText.length(); i++) {
+            node = node.children.get(stepText.charAt(i));
+            if (node == null) {
+                break;
+            }
+            result.addAll(node.stepDefinitions);
+        }
+        return result;
+    }
+
+    /**
+     * Obtains the literal text any step matching the pattern starts with.
+     * <p>
+     * Works for both regular and cucumber expressions: it stops at the first character that is special in
+     * any of them, drops the previous character when it could be optional and returns an empty prefix
+     * when the pattern contains a top-level alternation.
+     *
+     * @param pattern step definition pattern
+     * @return literal prefix, empty if none
+     */
+    static String literalPrefix(String pattern) {
+        if (hasTopLevelAlternation(pattern)) {
+            return "";
+        }
+        StringBuilder prefix = new StringBuilder();
+        for (int i = pattern.startsWith("^") ? 1 : 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (SPECIAL_CHARS.indexOf(c) < 0) {
+                prefix.append(c);
+                continue;
+            }
+            if ((c == '?' || c == '*' || c == '{') && prefix.length() > 0) {
+                prefix.setLength(prefix.length() - 1);
+            } else if (c == '/') {
+                prefix.setLength(prefix.lastIndexOf(" ") + 1);
+            }
+            break;
+        }
+        return prefix.toString();
+    }
+
+    private static boolean hasTopLevelAlternation(String pattern) {
+        boolean escaped = false;
+        boolean inClass = false;
+        int depth = 0;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (escaped) {
+                escaped = false;
+            } else if (c == '\\') {
+                escaped = true;
+            } else if (inClass) {
+                inClass = c != ']';
+            } else if (c == '[') {
+                inClass = true;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '|' && depth <= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Node {
+
+        private final Map<Character, Node> children = new HashMap<>();
+
+        private final List<StepDefinition> stepDefinitions = new ArrayList<>();
+    }
+}
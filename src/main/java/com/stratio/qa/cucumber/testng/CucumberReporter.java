@@ -16,30 +16,22 @@
 
 package com.stratio.qa.cucumber.testng;
 
-import com.stratio.qa.utils.ThreadProperty;
 import cucumber.api.PickleStepTestStep;
 import cucumber.api.Result;
 import cucumber.api.TestCase;
 import cucumber.api.event.*;
-import cucumber.api.event.EventListener;
 import cucumber.api.formatter.StrictAware;
 import cucumber.runtime.CucumberException;
 import cucumber.runtime.Utils;
 import gherkin.pickles.*;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.w3c.dom.*;
-import org.w3c.dom.Node;
-
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import java.io.*;
 import java.math.BigDecimal;
 import java.nio.charset.Charset;
@@ -48,7 +40,14 @@ import java.text.NumberFormat;
 import java.text.SimpleDateFormat;
 import java.util.*;
 
-public class CucumberReporter implements EventListener, StrictAware {
+/**
+ * TestNG and JUnit xml reporter.
+ * <p>
+ * Every finished scenario is streamed to a partial report file, while the totals are kept in counters. When the
+ * run finishes, the reports are written with the totals as root attributes followed by the partial contents, so
+ * memory usage does not depend on the number of executed scenarios.
+ */
+public class CucumberReporter implements ConcurrentEventListener, StrictAware {
 
     public static final int DURATION_STRING = 1000000;
 
@@ -58,33 +57,47 @@ public class CucumberReporter implements EventListener, StrictAware {
 
     private static final String STATUS = "status";
 
-    private final Document document;
+    private static final String PASS = "PASS";
+
+    private static final String FAIL = "FAIL";
+
+    private static final String SKIP = "SKIP";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    private final File testNGFile;
+
+    private final File jUnitFile;
+
+    private final File testNGPartFile;
 
-    private final Document jUnitDocument;
+    private final File jUnitPartFile;
 
-    private final Element results;
+    private final Writer testNGPartWriter;
 
-    private final Element jUnitResults;
+    private final Writer jUnitPartWriter;
 
-    private final Element suite;
+    private final Map<TestCase, TestMethod> runningTestMethods = new IdentityHashMap<TestCase, TestMethod>();
 
-    private final Element jUnitSuite;
+    private final String callerClass;
 
-    private final Element test;
+    private String currentFeatureFile;
 
-    private Writer writer;
+    private String previousTestCaseName = "";
 
-    private Writer  writerJunit;
+    private int exampleNumber = 1;
 
-    private Element clazz;
+    private String classFeatureFile;
 
-    private Element root;
+    private int passed;
 
-    private Element jUnitRoot;
+    private int failed;
 
-    private TestMethod testMethod;
+    private int skipped;
 
-    private static String callerClass;
+    private double totalDuration;
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass()
             .getCanonicalName());
@@ -125,38 +138,13 @@ public class CucumberReporter implements EventListener, StrictAware {
      * @throws IOException exception
      */
     public CucumberReporter(String url, String cClass) throws IOException {
-        try {
-            this.writer = new OutputStreamWriter(new FileOutputStream(url + cClass + "TESTNG.xml"), Charset.forName("UTF-8"));
-        } catch (Exception e) {
-            logger.error("error writing TESTNG.xml file", e);
-        }
-        try {
-            this.writerJunit = new OutputStreamWriter(new FileOutputStream(url + cClass + "JUNIT.xml"), Charset.forName("UTF-8"));
-        } catch (Exception e) {
-            logger.error("error writing JUNIT.xml file", e);
-        }
-        TestMethod.currentFeatureFile = null;
-        TestMethod.treatConditionallySkippedAsFailure = false;
-        TestMethod.previousTestCaseName = "";
-        TestMethod.exampleNumber = 1;
         callerClass = cClass;
-
-        try {
-            document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
-            results = document.createElement("testng-results");
-            suite = document.createElement("suite");
-            test = document.createElement("test");
-            suite.appendChild(test);
-            results.appendChild(suite);
-            document.appendChild(results);
-            jUnitDocument = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
-            jUnitResults = jUnitDocument.createElement("testsuites");
-            jUnitSuite = jUnitDocument.createElement("testsuite");
-            jUnitDocument.appendChild(jUnitResults);
-            jUnitResults.appendChild(jUnitSuite);
-        } catch (ParserConfigurationException e) {
-            throw new CucumberException("Error initializing DocumentBuilder.", e);
-        }
+        testNGFile = new File(url + cClass + "TESTNG.xml");
+        jUnitFile = new File(url + cClass + "JUNIT.xml");
+        testNGPartFile = new File(url + cClass + "TESTNG.xml.part");
+        jUnitPartFile = new File(url + cClass + "JUNIT.xml.part");
+        testNGPartWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(testNGPartFile), UTF_8));
+        jUnitPartWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(jUnitPartFile), UTF_8));
     }
 
     @Override
@@ -171,31 +159,24 @@ public class CucumberReporter implements EventListener, StrictAware {
     public void setStrict(boolean strict) {
     }
 
-    private void handleTestCaseStarted(TestCaseStarted event) {
-        if (TestMethod.currentFeatureFile == null || !TestMethod.currentFeatureFile.equals(event.testCase.getUri())) {
-            TestMethod.currentFeatureFile = event.testCase.getUri();
-            TestMethod.previousTestCaseName = "";
-            TestMethod.exampleNumber = 1;
-            clazz = document.createElement("class");
-            clazz.setAttribute("name", callerClass);
-            test.appendChild(clazz);
+    private synchronized void handleTestCaseStarted(TestCaseStarted event) {
+        if (currentFeatureFile == null || !currentFeatureFile.equals(event.testCase.getUri())) {
+            currentFeatureFile = event.testCase.getUri();
+            previousTestCaseName = "";
+            exampleNumber = 1;
         }
-        testMethod = new TestMethod(event.testCase);
-        String scenarioName = testMethod.calculateElementName(event.testCase);
-        //TestNG
-        root = document.createElement("test-method");
-        clazz.appendChild(root);
-        root.setAttribute("name", scenarioName);
-        root.setAttribute("started-at", DATE_FORMAT.format(new Date()));
-        //JUnit
-        jUnitRoot = testMethod.createElement(jUnitDocument);
-        jUnitRoot.setAttribute("classname", callerClass);
-        jUnitRoot.setAttribute("name", scenarioName);
-        jUnitSuite.appendChild(jUnitRoot);
-        increaseAttributeValue(jUnitSuite, "tests");
+        // Scenarios executed in parallel may interleave their events, so keep one open test method per test case
+        TestMethod testMethod = new TestMethod(event.testCase);
+        testMethod.name = calculateElementName(event.testCase);
+        testMethod.startedAt = DATE_FORMAT.format(new Date());
+        runningTestMethods.put(event.testCase, testMethod);
     }
 
-    private void handleTestStepFinished(TestStepFinished event) {
+    private synchronized void handleTestStepFinished(TestStepFinished event) {
+        TestMethod testMethod = runningTestMethods.get(event.getTestCase());
+        if (testMethod == null) {
+            return;
+        }
         if (event.testStep instanceof PickleStepTestStep) {
             testMethod.steps.add((PickleStepTestStep) event.testStep);
             testMethod.results.add(event.result);
@@ -204,128 +185,152 @@ public class CucumberReporter implements EventListener, StrictAware {
         }
     }
 
-    private void handleTestCaseFinished(TestCaseFinished event) {
-        testMethod.finish(document, root, jUnitDocument, jUnitRoot, event.result);
-    }
-
-    private void finishReport() {
+    private synchronized void handleTestCaseFinished(TestCaseFinished event) {
+        TestMethod testMethod = runningTestMethods.remove(event.getTestCase());
+        if (testMethod == null) {
+            return;
+        }
         try {
-            // TestNG
-            results.setAttribute("total", String.valueOf(getElementsCountByAttribute(suite, "status", ".*")));
-            results.setAttribute("passed", String.valueOf(getElementsCountByAttribute(suite, "status", "PASS")));
-            results.setAttribute("failed", String.valueOf(getElementsCountByAttribute(suite, "status", "FAIL")));
-            results.setAttribute("skipped", String.valueOf(getElementsCountByAttribute(suite, "status", "SKIP")));
-            suite.setAttribute("name", CucumberReporter.class.getName());
-            suite.setAttribute("duration-ms", String.valueOf(getTotalDuration(suite.getElementsByTagName("test-method"))));
-            test.setAttribute("name", CucumberReporter.class.getName());
-            test.setAttribute("duration-ms", String.valueOf(getTotalDuration(suite.getElementsByTagName("test-method"))));
-
-            Transformer transformer = TransformerFactory.newInstance().newTransformer();
-            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-            StreamResult streamResult = new StreamResult(writer);
-            DOMSource domSource = new DOMSource(document);
-            transformer.transform(domSource, streamResult);
-            closeQuietly(writer);
-
-            // JUnit
-            // set up a transformer
-            jUnitSuite.setAttribute("name", callerClass + "." + TestSourcesModelUtil.INSTANCE.getTestSourcesModel().getFeatureName(TestMethod.currentFeatureFile));
-            jUnitSuite.setAttribute("failures", String.valueOf(jUnitSuite.getElementsByTagName("failure").getLength()));
-            jUnitSuite.setAttribute("skipped", String.valueOf(jUnitSuite.getElementsByTagName("skipped").getLength()));
-            jUnitSuite.setAttribute("time", sumTimes(jUnitSuite.getElementsByTagName("testcase")));
-            jUnitSuite.setAttribute("tests", String.valueOf(getElementsCountByAttribute(suite, STATUS, ".*")));
-            jUnitSuite.setAttribute("errors", String.valueOf(getElementsCountByAttribute(suite, STATUS, "FAIL")));
-            jUnitSuite.setAttribute("timestamp", new java.util.Date().toString());
-            jUnitSuite.setAttribute("time",
-                    String.valueOf(BigDecimal.valueOf(getTotalDurationMs(suite.getElementsByTagName("test-method"))).setScale(3, BigDecimal.ROUND_HALF_UP).floatValue()));
-
-            if (jUnitSuite.getElementsByTagName("testcase").getLength() == 0) {
-                addDummyTestCase(); // to avoid failed Jenkins jobs
+            String uri = event.getTestCase().getUri();
+            if (!uri.equals(classFeatureFile)) {
+                // class elements span several scenarios, so their tags are written as plain text
+                if (classFeatureFile != null) {
+                    testNGPartWriter.write("</class>\n");
+                }
+                classFeatureFile = uri;
+                testNGPartWriter.write("<class name=\"" + callerClass + "\">\n");
+            }
+            // every part is a sequence of root elements, each one written by its own stream writer
+            XMLStreamWriter testNGPart = XML_OUTPUT_FACTORY.createXMLStreamWriter(testNGPartWriter);
+            XMLStreamWriter jUnitPart = XML_OUTPUT_FACTORY.createXMLStreamWriter(jUnitPartWriter);
+            String status = testMethod.finish(testNGPart, jUnitPart, callerClass, event.result);
+            testNGPart.writeEndDocument();
+            testNGPart.close();
+            testNGPartWriter.write("\n");
+            jUnitPart.writeEndDocument();
+            jUnitPart.close();
+            jUnitPartWriter.write("\n");
+            if (PASS.equals(status)) {
+                passed++;
+            } else if (FAIL.equals(status)) {
+                failed++;
+            } else {
+                skipped++;
             }
-            TransformerFactory transfac = TransformerFactory.newInstance();
-            Transformer trans = transfac.newTransformer();
-            trans.setOutputProperty(OutputKeys.INDENT, "yes");
-            StreamResult result = new StreamResult(writerJunit);
-            DOMSource source = new DOMSource(jUnitDocument);
-            trans.transform(source, result);
-            closeQuietly(writerJunit);
-        } catch (TransformerException e) {
-            throw new CucumberException("Error transforming report.", e);
+            totalDuration += testMethod.calculateTotalDurationString();
+        } catch (XMLStreamException | IOException e) {
+            throw new CucumberException("Error writing report.", e);
         }
     }
 
-    private int getElementsCountByAttribute(Node node, String attributeName, String attributeValue) {
-        int count = 0;
-
-        for (int i = 0; i < node.getChildNodes().getLength(); i++) {
-            count += getElementsCountByAttribute(node.getChildNodes().item(i), attributeName, attributeValue);
-        }
+    private synchronized void finishReport() {
+        int total = passed + failed + skipped;
+        try {
+            if (classFeatureFile != null) {
+                testNGPartWriter.write("</class>\n");
+            }
+            closeQuietly(testNGPartWriter);
+            closeQuietly(jUnitPartWriter);
 
-        NamedNodeMap attributes = node.getAttributes();
-        if (attributes != null) {
-            Node namedItem = attributes.getNamedItem(attributeName);
-            if (namedItem != null && namedItem.getNodeValue().matches(attributeValue)) {
-                count++;
+            // TestNG
+            Writer writer = new OutputStreamWriter(new FileOutputStream(testNGFile), UTF_8);
+            try {
+                XMLStreamWriter testNG = XML_OUTPUT_FACTORY.createXMLStreamWriter(writer);
+                testNG.writeStartDocument("UTF-8", "1.0");
+                testNG.writeStartElement("testng-results");
+                testNG.writeAttribute("total", String.valueOf(total));
+                testNG.writeAttribute("passed", String.valueOf(passed));
+                testNG.writeAttribute("failed", String.valueOf(failed));
+                testNG.writeAttribute("skipped", String.valueOf(skipped));
+                testNG.writeStartElement("suite");
+                testNG.writeAttribute("name", CucumberReporter.class.getName());
+                testNG.writeAttribute("duration-ms", String.valueOf(totalDuration));
+                testNG.writeStartElement("test");
+                testNG.writeAttribute("name", CucumberReporter.class.getName());
+                testNG.writeAttribute("duration-ms", String.valueOf(totalDuration));
+                appendPart(testNG, writer, testNGPartFile);
+                testNG.writeEndDocument();
+                testNG.close();
+            } finally {
+                closeQuietly(writer);
             }
-        }
-        return count;
-    }
 
-    private double getTotalDuration(NodeList testCaseNodes) {
-        double totalDuration = 0;
-        for (int i = 0; i < testCaseNodes.getLength(); i++) {
+            // JUnit
+            Writer writerJunit = new OutputStreamWriter(new FileOutputStream(jUnitFile), UTF_8);
             try {
-                String duration = "0";
-                Node durationms = testCaseNodes.item(i).getAttributes().getNamedItem("duration-ms");
-                if (durationms != null) {
-                    duration = durationms.getNodeValue();
+                XMLStreamWriter jUnit = XML_OUTPUT_FACTORY.createXMLStreamWriter(writerJunit);
+                jUnit.writeStartDocument("UTF-8", "1.0");
+                jUnit.writeStartElement("testsuites");
+                jUnit.writeStartElement("testsuite");
+                jUnit.writeAttribute("name", callerClass + "."
+                        + TestSourcesModelUtil.INSTANCE.getTestSourcesModel().getFeatureName(currentFeatureFile));
+                jUnit.writeAttribute("failures", String.valueOf(failed));
+                jUnit.writeAttribute("skipped", String.valueOf(skipped));
+                jUnit.writeAttribute("time",
+                        String.valueOf(BigDecimal.valueOf(totalDuration / 1000).setScale(3, BigDecimal.ROUND_HALF_UP).floatValue()));
+                jUnit.writeAttribute("tests", String.valueOf(total));
+                jUnit.writeAttribute("errors", String.valueOf(failed));
+                jUnit.writeAttribute("timestamp", new Date().toString());
+                appendPart(jUnit, writerJunit, jUnitPartFile);
+                if (total == 0) {
+                    writeDummyTestCase(jUnit); // to avoid failed Jenkins jobs
                 }
-                totalDuration += Double.parseDouble(duration);
-            } catch (NumberFormatException e) {
-                throw new CucumberException(e);
+                jUnit.writeEndDocument();
+                jUnit.close();
+            } finally {
+                closeQuietly(writerJunit);
             }
+        } catch (XMLStreamException | IOException e) {
+            throw new CucumberException("Error writing report.", e);
+        } finally {
+            FileUtils.deleteQuietly(testNGPartFile);
+            FileUtils.deleteQuietly(jUnitPartFile);
         }
-        return totalDuration;
     }
 
-    private double getTotalDurationMs(NodeList testCaseNodes) {
-        return getTotalDuration(testCaseNodes) / 1000;
+    /**
+     * Copies an already serialized report part as the content of the current element.
+     *
+     * @param xml report being written
+     * @param writer writer under the report
+     * @param part file with the serialized elements
+     */
+    private void appendPart(XMLStreamWriter xml, Writer writer, File part) throws XMLStreamException, IOException {
+        // text content closes the current start tag
+        xml.writeCharacters("\n");
+        xml.flush();
+        Reader reader = new InputStreamReader(new FileInputStream(part), UTF_8);
+        try {
+            IOUtils.copy(reader, writer);
+        } finally {
+            closeQuietly(reader);
+        }
     }
 
-    private void increaseAttributeValue(Element element, String attribute) {
-        int value = 0;
-        if (element.hasAttribute(attribute)) {
-            value = Integer.parseInt(element.getAttribute(attribute));
+    private String calculateElementName(cucumber.api.TestCase testCase) {
+        String testCaseName = testCase.getName();
+        if (testCaseName.equals(previousTestCaseName)) {
+            exampleNumber++;
+            return Utils.getUniqueTestNameForScenarioExample(testCaseName, exampleNumber);
+        } else {
+            previousTestCaseName = testCase.getName();
+            exampleNumber = 1;
+            return testCaseName;
         }
-        element.setAttribute(attribute, String.valueOf(++value));
     }
 
-    private void addDummyTestCase() {
-        Element dummy = jUnitDocument.createElement("testcase");
-        dummy.setAttribute("classname", "dummy");
-        dummy.setAttribute("name", "dummy");
-        jUnitSuite.appendChild(dummy);
-        Element skipped = jUnitDocument.createElement("skipped");
-        skipped.setAttribute("message", "No features found");
-        dummy.appendChild(skipped);
+    private void writeDummyTestCase(XMLStreamWriter jUnit) throws XMLStreamException {
+        jUnit.writeStartElement("testcase");
+        jUnit.writeAttribute("classname", "dummy");
+        jUnit.writeAttribute("name", "dummy");
+        jUnit.writeEmptyElement("skipped");
+        jUnit.writeAttribute("message", "No features found");
+        jUnit.writeEndElement();
     }
 
-    private String sumTimes(NodeList testCaseNodes) {
-        double totalDurationSecondsForAllTimes = 0.0d;
-        for (int i = 0; i < testCaseNodes.getLength(); i++) {
-            try {
-                double testCaseTime =
-                        Double.parseDouble(testCaseNodes.item(i).getAttributes().getNamedItem("time").getNodeValue());
-                totalDurationSecondsForAllTimes += testCaseTime;
-            } catch (NumberFormatException e) {
-                throw new CucumberException(e);
-            } catch (NullPointerException e) {
-                throw new CucumberException(e);
-            }
-        }
-        DecimalFormat nfmt = (DecimalFormat) NumberFormat.getNumberInstance(Locale.US);
-        nfmt.applyPattern("0.######");
-        return nfmt.format(totalDurationSecondsForAllTimes);
+    private static void writeCData(XMLStreamWriter xml, String data) throws XMLStreamException {
+        // a CDATA section cannot contain its own end marker, so it is split in two sections
+        xml.writeCData(data.replace("]]>", "]]]]><![CDATA[>"));
     }
 
     private static void closeQuietly(Closeable out) {
@@ -338,14 +343,6 @@ public class CucumberReporter implements EventListener, StrictAware {
 
     public static class TestMethod {
 
-        static String currentFeatureFile;
-
-        static String previousTestCaseName;
-
-        static int exampleNumber;
-
-        static boolean treatConditionallySkippedAsFailure = false;
-
         private final List<Result> results = new ArrayList<Result>();
 
         private TestCase scenario = null;
@@ -354,6 +351,10 @@ public class CucumberReporter implements EventListener, StrictAware {
 
         private List<Result> hooks = new ArrayList<Result>();
 
+        private String name;
+
+        private String startedAt;
+
         private static final DecimalFormat NUMBER_FORMAT = (DecimalFormat) NumberFormat.getNumberInstance(Locale.US);
 
         static {
@@ -365,23 +366,16 @@ public class CucumberReporter implements EventListener, StrictAware {
         }
 
         /**
-         * Builds a test result xml document
+         * Writes the test result xml elements
          *
-         * @param doc report document
-         * @param element scenario execution result
-         * @param docJunit docJunit report document
-         * @param Junit Junit scenario execution result
+         * @param testNG TestNG report writer
+         * @param jUnit JUnit report writer
+         * @param className class name of the JUnit test case
+         * @param eventResult scenario execution result
+         * @return TestNG status of the scenario
+         * @throws XMLStreamException exception
          */
-        public void finish(Document doc, Element element, Document docJunit, Element Junit, Result eventResult) {
-            if (steps.isEmpty()) {
-                createExceptionJunit(docJunit, "The scenario has no steps", "");
-            }
-            //JUnit
-            Junit.setAttribute("time", calculateTotalDurationString(eventResult));
-            //TestNG
-            element.setAttribute("duration-ms", String.valueOf(calculateTotalDurationString()));
-            element.setAttribute("finished-at", DATE_FORMAT.format(new Date()));
-
+        public String finish(XMLStreamWriter testNG, XMLStreamWriter jUnit, String className, Result eventResult) throws XMLStreamException {
             StringBuilder stringBuilder = new StringBuilder();
             addStepAndResultListing(stringBuilder);
             Result skipped = null;
@@ -399,48 +393,51 @@ public class CucumberReporter implements EventListener, StrictAware {
                     failed = result;
                 }
             }
+            boolean importantFailed = failed != null && failed.getErrorMessage().contains("An important scenario has failed!");
+            String status = PASS;
             if (failed != null) {
-                element.setAttribute("status", "FAIL");
+                status = importantFailed ? SKIP : FAIL;
+            } else if (skipped != null) {
+                status = SKIP;
+            }
+            //TestNG
+            testNG.writeStartElement("test-method");
+            testNG.writeAttribute("name", name);
+            testNG.writeAttribute("started-at", startedAt);
+            testNG.writeAttribute("duration-ms", String.valueOf(calculateTotalDurationString()));
+            testNG.writeAttribute("finished-at", DATE_FORMAT.format(new Date()));
+            testNG.writeAttribute(STATUS, status);
+            //JUnit
+            jUnit.writeStartElement("testcase");
+            jUnit.writeAttribute("classname", className);
+            jUnit.writeAttribute("name", name);
+            jUnit.writeAttribute("time", calculateTotalDurationString(eventResult));
+
+            if (importantFailed) {
+                String message = "This scenario was skipped because an important scenario has failed.";
+                writeException(testNG, "NonRealException", message, " ");
+                jUnit.writeEmptyElement("skipped");
+                writeSystemOutJunit(jUnit, message);
+            } else if (failed != null && failed.getErrorMessage().contains("NonReplaceableException")) {
+                writeException(testNG, "The scenario has unreplaced variables.", "The scenario has unreplaced variables.", " ");
+                writeExceptionJunit(jUnit, "The scenario has unreplaced variables.", " ");
+                writeSystemOutJunit(jUnit, stringBuilder.toString());
+            } else if (failed != null) {
                 StringWriter stringWriter = new StringWriter();
-                if (failed.getErrorMessage().contains("An important scenario has failed!")) {
-                    String message = "This scenario was skipped because an important scenario has failed.";
-                    element.setAttribute(STATUS, "SKIP");
-                    Element exception = createException(doc, "NonRealException", message, " ");
-                    element.appendChild(exception);
-                    Element skippedElementJunit = docJunit.createElement("skipped");
-                    Junit.appendChild(skippedElementJunit);
-                    Element systemOut = systemOutPrintJunit(docJunit, message);
-                    Junit.appendChild(systemOut);
-                } else if (failed.getErrorMessage().contains("NonReplaceableException")) {
-                    Element exception = createException(doc, "The scenario has unreplaced variables.",
-                            "The scenario has unreplaced variables.", " ");
-                    element.appendChild(exception);
-                    Element exceptionJunit = createExceptionJunit(docJunit, "The scenario has unreplaced variables.", " ");
-                    Junit.appendChild(exceptionJunit);
-                    Element systemOut = systemOutPrintJunit(docJunit, stringBuilder.toString());
-                    Junit.appendChild(systemOut);
-                } else {
-                    failed.getError().printStackTrace(new PrintWriter(stringWriter));
-                    Element exception = createException(doc, failed.getError().getClass().getName(), stringBuilder.toString(), stringWriter.toString());
-                    element.appendChild(exception);
-                    Element exceptionJunit = createExceptionJunit(docJunit, stringBuilder.toString(), stringWriter.toString());
-                    Junit.appendChild(exceptionJunit);
-                }
+                failed.getError().printStackTrace(new PrintWriter(stringWriter));
+                writeException(testNG, failed.getError().getClass().getName(), stringBuilder.toString(), stringWriter.toString());
+                writeExceptionJunit(jUnit, stringBuilder.toString(), stringWriter.toString());
             } else if (skipped != null) {
-                element.setAttribute("status", "SKIP");
-                Element exception = createException(doc, "NonRealException", stringBuilder.toString(), " ");
-                element.appendChild(exception);
-                Element skippedElementJunit = docJunit.createElement("skipped");
-                Junit.appendChild(skippedElementJunit);
-                Element systemOut = systemOutPrintJunit(docJunit, stringBuilder.toString());
-                Junit.appendChild(systemOut);
+                writeException(testNG, "NonRealException", stringBuilder.toString(), " ");
+                jUnit.writeEmptyElement("skipped");
+                writeSystemOutJunit(jUnit, stringBuilder.toString());
             } else {
-                element.setAttribute("status", "PASS");
-                Element exception = createException(doc, "NonRealException", stringBuilder.toString(), " ");
-                element.appendChild(exception);
-                Element systemOut = systemOutPrintJunit(docJunit, stringBuilder.toString());
-                Junit.appendChild(systemOut);
+                writeException(testNG, "NonRealException", stringBuilder.toString(), " ");
+                writeSystemOutJunit(jUnit, stringBuilder.toString());
             }
+            testNG.writeEndElement();
+            jUnit.writeEndElement();
+            return status;
         }
 
         private double calculateTotalDurationString() {
@@ -459,6 +456,7 @@ public class CucumberReporter implements EventListener, StrictAware {
         }
 
         public void addStepAndResultListing(StringBuilder sb) {
+            String currentFeatureFile = scenario.getUri();
             for (int i = 0; i < steps.size(); i++) {
                 int length = sb.length();
                 String resultStatus = "not executed";
@@ -518,54 +516,36 @@ public class CucumberReporter implements EventListener, StrictAware {
             return "";
         }
 
-        private Element createException(Document doc, String clazz, String message, String stacktrace) {
-            Element exceptionElement = doc.createElement("exception");
-            exceptionElement.setAttribute("class", clazz);
+        private void writeException(XMLStreamWriter xml, String clazz, String message, String stacktrace) throws XMLStreamException {
+            xml.writeStartElement("exception");
+            xml.writeAttribute("class", clazz);
 
             if (message != null) {
-                Element messageElement = doc.createElement("message");
-                messageElement.appendChild(doc.createCDATASection("\r\n<pre>\r\n" + message + "\r\n</pre>\r\n"));
-                exceptionElement.appendChild(messageElement);
+                xml.writeStartElement("message");
+                writeCData(xml, "\r\n<pre>\r\n" + message + "\r\n</pre>\r\n");
+                xml.writeEndElement();
             }
 
-            Element stacktraceElement = doc.createElement("full-stacktrace");
-            stacktraceElement.appendChild(doc.createCDATASection(stacktrace));
-            exceptionElement.appendChild(stacktraceElement);
-
-            return exceptionElement;
-        }
-
-        private Element createElement(Document doc) {
-            return doc.createElement("testcase");
-        }
+            xml.writeStartElement("full-stacktrace");
+            writeCData(xml, stacktrace);
+            xml.writeEndElement();
 
-        public String calculateElementName(cucumber.api.TestCase testCase) {
-            String testCaseName = testCase.getName();
-            if (testCaseName.equals(previousTestCaseName)) {
-                exampleNumber++;
-                ThreadProperty.set("dataSet", String.valueOf(exampleNumber));
-                return Utils.getUniqueTestNameForScenarioExample(testCaseName, exampleNumber);
-            } else {
-                ThreadProperty.set("dataSet", "");
-                previousTestCaseName = testCase.getName();
-                exampleNumber = 1;
-                return testCaseName;
-            }
+            xml.writeEndElement();
         }
 
-        private Element createExceptionJunit(Document doc, String message, String stacktrace) {
-            Element exceptionElement = doc.createElement("failure");
+        private void writeExceptionJunit(XMLStreamWriter xml, String message, String stacktrace) throws XMLStreamException {
+            xml.writeStartElement("failure");
             if (message != null) {
-                exceptionElement.setAttribute("message", "\r\n" + message + "\r\n");
+                xml.writeAttribute("message", "\r\n" + message + "\r\n");
             }
-            exceptionElement.appendChild(doc.createCDATASection(stacktrace));
-            return exceptionElement;
+            writeCData(xml, stacktrace);
+            xml.writeEndElement();
         }
 
-        private Element systemOutPrintJunit(Document doc, String message) {
-            Element systemOut = doc.createElement("system-out");
-            systemOut.appendChild(doc.createCDATASection("\r\n" + message + "\r\n"));
-            return systemOut;
+        private void writeSystemOutJunit(XMLStreamWriter xml, String message) throws XMLStreamException {
+            xml.writeStartElement("system-out");
+            writeCData(xml, "\r\n" + message + "\r\n");
+            xml.writeEndElement();
         }
     }
 }
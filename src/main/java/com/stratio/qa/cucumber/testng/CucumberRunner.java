@@ -18,6 +18,7 @@ package com.stratio.qa.cucumber.testng;
 
 import com.stratio.qa.cucumber.converter.LoopConverter;
 import com.stratio.qa.cucumber.runtime.RuntimeOptionsFactoryCustom;
+import com.stratio.qa.utils.ThreadProperty;
 import cucumber.api.event.ConcurrentEventListener;
 import cucumber.api.event.TestRunFinished;
 import cucumber.api.event.TestRunStarted;
@@ -48,12 +49,21 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class CucumberRunner {
 
+    public static final String SCENARIO_THREADS = "SCENARIO_THREADS";
+
     private final EventBus bus;
 
     private final Filters filters;
@@ -66,6 +76,10 @@ public class CucumberRunner {
 
     private final Plugins plugins;
 
+    private final int scenarioThreads = getScenarioThreads();
+
+    private ExecutorService scenarioExecutor;
+
     /**
      * Bootstrap the cucumber runtime
      *
@@ -159,21 +173,33 @@ public class CucumberRunner {
         runtimeOptions.getGlue().addAll(uniqueGlue);
     }
 
+    /**
+     * Number of threads used to run scenarios, taken from the SCENARIO_THREADS property.
+     * By default (1) scenarios run sequentially.
+     *
+     * @return number of threads
+     */
+    public static int getScenarioThreads() {
+        try {
+            return Math.max(1, Integer.parseInt(System.getProperty(SCENARIO_THREADS, "1")));
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+
     public void runScenario(PickleEvent pickle) throws Throwable {
         //Possibly invoked in a multi-threaded context
-        Throwable e = null;
+        Iterator<PickleEvent> pickleEvents = LoopConverter.expandPickleEventWithLoopTags(pickle);
+        PickleEvent first = pickleEvents.hasNext() ? pickleEvents.next() : pickle;
+        if (scenarioThreads > 1 && pickleEvents.hasNext()) {
+            runScenariosInParallel(first, pickleEvents);
+            return;
+        }
         Runner runner = runnerSupplier.get();
-        List<PickleEvent> pickleEventList = getPickleEventListFromTags(pickle);
-        for (PickleEvent pickleEvent : pickleEventList) {
-            try {
-                TestCaseResultListener testCaseResultListener = new TestCaseResultListener(runner.getBus(), runtimeOptions.isStrict());
-                runner.runPickle(pickleEvent);
-                testCaseResultListener.finishExecutionUnit();
-
-                if (!testCaseResultListener.isPassed()) {
-                    throw testCaseResultListener.getError();
-                }
-            } catch (Throwable e1) {
+        Throwable e = runPickle(runner, first);
+        while (pickleEvents.hasNext()) {
+            Throwable e1 = runPickle(runner, pickleEvents.next());
+            if (e1 != null) {
                 e = e1;
             }
         }
@@ -182,7 +208,69 @@ public class CucumberRunner {
         }
     }
 
+    /**
+     * Runs the scenarios expanded from a single one (i.e. @loop) in the scenario workers.
+     * Each worker uses its own runner (and so its own glue and CommonG) and a copy of the caller thread properties.
+     * Scenarios are expanded as workers get free, so no more than twice the number of workers are pending at a time.
+     *
+     * @param first  first expanded scenario
+     * @param others rest of expanded scenarios
+     * @throws Throwable last error found, if any
+     */
+    private void runScenariosInParallel(PickleEvent first, Iterator<PickleEvent> others) throws Throwable {
+        final Properties props = ThreadProperty.getAll();
+        Deque<Future<Throwable>> results = new ArrayDeque<>();
+        Throwable e = null;
+        PickleEvent next = first;
+        while (next != null || !results.isEmpty()) {
+            if (next != null && results.size() < 2 * scenarioThreads) {
+                final PickleEvent pickleEvent = next;
+                results.add(getScenarioExecutor().submit(() -> {
+                    ThreadProperty.setAll(props);
+                    return runPickle(runnerSupplier.get(), pickleEvent);
+                }));
+                next = others.hasNext() ? others.next() : null;
+            } else {
+                Throwable e1 = results.poll().get();
+                if (e1 != null) {
+                    e = e1;
+                }
+            }
+        }
+        if (e != null) {
+            throw e;
+        }
+    }
+
+    private Throwable runPickle(Runner runner, PickleEvent pickleEvent) {
+        try {
+            TestCaseResultListener testCaseResultListener = new TestCaseResultListener(runner.getBus(), runtimeOptions.isStrict());
+            runner.runPickle(pickleEvent);
+            testCaseResultListener.finishExecutionUnit();
+
+            if (!testCaseResultListener.isPassed()) {
+                return testCaseResultListener.getError();
+            }
+        } catch (Throwable e) {
+            return e;
+        }
+        return null;
+    }
+
+    private synchronized ExecutorService getScenarioExecutor() {
+        if (scenarioExecutor == null) {
+            scenarioExecutor = Executors.newFixedThreadPool(scenarioThreads);
+        }
+        return scenarioExecutor;
+    }
+
     public void finish() {
+        synchronized (this) {
+            if (scenarioExecutor != null) {
+                scenarioExecutor.shutdown();
+                scenarioExecutor = null;
+            }
+        }
         bus.send(new TestRunFinished(bus.getTime(), bus.getTimeMillis()));
     }
 
@@ -217,11 +305,4 @@ public class CucumberRunner {
         }
         return features;
     }
-
-    private List<PickleEvent> getPickleEventListFromTags(PickleEvent pe) {
-        List<PickleEvent> pickleEventList = new ArrayList<>();
-        //pickleEventList.add(pe);
-        pickleEventList = LoopConverter.transformPickleEventWithLoopTags(pe);
-        return pickleEventList;
-    }
 }
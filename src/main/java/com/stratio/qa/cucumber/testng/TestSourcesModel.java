@@ -21,18 +21,25 @@ import gherkin.*;
 import gherkin.ast.*;
 import gherkin.pickles.PickleStep;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class TestSourcesModel {
-    private final Map<String, TestSourceRead> pathToReadEventMap = new HashMap();
+    private final Map<String, TestSourceRead> pathToReadEventMap = new ConcurrentHashMap<>();
 
-    private final Map<String, GherkinDocument> pathToAstMap = new HashMap();
+    private final Map<String, GherkinDocument> pathToAstMap = new ConcurrentHashMap<>();
 
-    private final Map<String, Map<Integer, TestSourcesModel.AstNode>> pathToNodeMap = new HashMap();
+    private final Map<String, Map<Integer, TestSourcesModel.AstNode>> pathToNodeMap = new ConcurrentHashMap<>();
 
-    private final Map<String, Map<Integer, PickleStep>> replacedStepsMap = new HashMap();
+    private final Map<String, Map<Integer, PickleStep>> replacedStepsMap = new ConcurrentHashMap<>();
+
+    private final Map<String, int[]> pathToLineOffsetsMap = new ConcurrentHashMap<>();
+
+    private final Map<String, List<String>> pathToStepKeywordsMap = new ConcurrentHashMap<>();
 
     public TestSourcesModel() {
     }
@@ -43,10 +50,51 @@ public class TestSourcesModel {
 
     public void addTestSourceReadEvent(String path, TestSourceRead event) {
         this.pathToReadEventMap.put(path, event);
+        this.pathToLineOffsetsMap.put(path, lineOffsets(event.source));
+        this.pathToAstMap.remove(path);
+        this.pathToNodeMap.remove(path);
+        this.pathToStepKeywordsMap.remove(path);
+    }
+
+    /**
+     * Computes the offset where every line of the source starts, so any line can be retrieved without splitting the
+     * whole source again.
+     *
+     * @param source feature source
+     * @return start offset of each line
+     */
+    static int[] lineOffsets(String source) {
+        int lines = 1;
+        for (int i = source.indexOf('\n'); i != -1; i = source.indexOf('\n', i + 1)) {
+            lines++;
+        }
+        int[] offsets = new int[lines];
+        int line = 1;
+        for (int i = source.indexOf('\n'); i != -1; i = source.indexOf('\n', i + 1)) {
+            offsets[line++] = i + 1;
+        }
+        return offsets;
+    }
+
+    /**
+     * Returns a line of a feature source.
+     *
+     * @param uri  feature uri
+     * @param line line number (1 based)
+     * @return source line, without line separator, or null if not available
+     */
+    public String getSourceLine(String uri, int line) {
+        TestSourceRead event = this.getTestSourceReadEvent(uri);
+        int[] offsets = this.pathToLineOffsetsMap.get(uri);
+        if (event == null || offsets == null || line < 1 || line > offsets.length) {
+            return null;
+        }
+        int end = line < offsets.length ? offsets[line] - 1 : event.source.length();
+        return event.source.substring(offsets[line - 1], end);
     }
 
     Feature getFeature(String path) {
-        if (!this.pathToAstMap.containsKey(path)) {
+        if (!this.pathToNodeMap.containsKey(path)) {
             this.parseGherkinSource(path);
         }
 
@@ -64,15 +112,13 @@ public class TestSourcesModel {
     public String getKeywordFromSource(String uri, int stepLine) {
         Feature feature = this.getFeature(uri);
         if (feature != null) {
-            TestSourceRead event = this.getTestSourceReadEvent(uri);
-            String trimmedSourceLine = event.source.split("\n")[stepLine - 1].trim();
-            GherkinDialect dialect = (new GherkinDialectProvider(feature.getLanguage())).getDefaultDialect();
-            Iterator var7 = dialect.getStepKeywords().iterator();
-
-            while (var7.hasNext()) {
-                String keyword = (String) var7.next();
-                if (trimmedSourceLine.startsWith(keyword)) {
-                    return keyword;
+            String sourceLine = this.getSourceLine(uri, stepLine);
+            if (sourceLine != null) {
+                String trimmedSourceLine = sourceLine.trim();
+                for (String keyword : this.getStepKeywords(uri, feature.getLanguage())) {
+                    if (trimmedSourceLine.startsWith(keyword)) {
+                        return keyword;
+                    }
                 }
             }
         }
@@ -80,6 +126,15 @@ public class TestSourcesModel {
         return "";
     }
 
+    private List<String> getStepKeywords(String uri, String language) {
+        List<String> keywords = this.pathToStepKeywordsMap.get(uri);
+        if (keywords == null) {
+            keywords = (new GherkinDialectProvider(language)).getDefaultDialect().getStepKeywords();
+            this.pathToStepKeywordsMap.put(uri, keywords);
+        }
+        return keywords;
+    }
+
     private TestSourceRead getTestSourceReadEvent(String uri) {
         return this.pathToReadEventMap.containsKey(uri) ? (TestSourceRead) this.pathToReadEventMap.get(uri) : null;
     }
@@ -108,7 +163,8 @@ public class TestSourcesModel {
 
                 this.pathToNodeMap.put(path, nodeMap);
             } catch (ParserException var9) {
-                ;
+                // Do not parse an invalid source again on every lookup
+                this.pathToNodeMap.put(path, Collections.emptyMap());
             }
 
         }
@@ -150,9 +206,7 @@ public class TestSourcesModel {
     }
 
     public void addReplacedStep(String feature, int stepLine, PickleStep replacedStep) {
-        Map<Integer, PickleStep> featureMap = replacedStepsMap.get(feature) != null ? replacedStepsMap.get(feature) : new HashMap<>();
-        featureMap.put(stepLine, replacedStep);
-        replacedStepsMap.put(feature, featureMap);
+        replacedStepsMap.computeIfAbsent(feature, k -> new ConcurrentHashMap<>()).put(stepLine, replacedStep);
     }
 
     public PickleStep getReplacedStep(String feature, int stepLine) {
@@ -59,6 +59,8 @@ public class CCTSpec extends BaseGSpec {
 
     private static final int MAX_TASKS = 10000;
 
+    private static final int MESOS_LOG_CHUNK_BYTES = 50000;
+
     CCTUtils cctUtils;
 
     RestSpec restSpec;
@@ -236,11 +238,13 @@ public class CCTSpec extends BaseGSpec {
         // Set REST connection
         commonspec.setCCTConnection(null, null);
         lastLinesToRead = lastLinesToRead == null ? -1 : lastLinesToRead;
-        String logOfTask = null;
+        MesosLogTail logTail = new MesosLogTail(lastLinesToRead, logToCheck.length() - 1);
+        boolean found = false;
         for (int x = 0; x <= timeout; x += wait) {
             try {
-                logOfTask = getLog(logType, lastLinesToRead, service, taskNameOrID, 0, null, taskAttrType);
-                if (logOfTask != null && logOfTask.contains(logToCheck)) {
+                String logPath = getLogPath(logType, service, taskNameOrID, 0, null, taskAttrType);
+                if (logPath != null && logTail.update(logPath) && logTail.contains(logToCheck)) {
+                    found = true;
                     break;
                 }
             } catch (Exception e) {
@@ -251,8 +255,9 @@ public class CCTSpec extends BaseGSpec {
                 Thread.sleep(wait * 1000);
             }
         }
-        Assert.assertNotNull(logOfTask, "Error downloading log file");
-        if (!logOfTask.contains(logToCheck)) {
+        if (!found) {
+            Assert.assertNotNull(logTail.getPath(), "Error downloading log file");
+            String logOfTask = lastLinesToRead >= 0 ? logTail.getLastLines() : readLogsFromMesos(logTail.getPath(), lastLinesToRead);
             Files.write(Paths.get(System.getProperty("user.dir") + "/target/test-classes/log.txt"), logOfTask.getBytes());
             fail("The log '" + logToCheck + "' is not contained in the task logs after " + timeout + " seconds. Last log downloaded is saved in target/test-classes/log.txt");
         }
@@ -273,15 +278,17 @@ public class CCTSpec extends BaseGSpec {
     public void readLogsModifiedInLessEachFromService(Integer timeout, Integer wait, Integer lastLinesToRead, String logType, String service, String taskAttrType, String taskNameOrID, String modifyingCommand, String logToCheck) throws Exception {
         // Set REST connection
         commonspec.setCCTConnection(null, null);
-        String logOfTask = null;
+        MesosLogTail logTail = new MesosLogTail(lastLinesToRead, 0);
+        String modifiedLog = null;
         for (int x = 0; x <= timeout; x += wait) {
             try {
-                logOfTask = getLog(logType, lastLinesToRead, service, taskNameOrID, 0, null, taskAttrType);
-                if (logOfTask != null) {
-                    Files.write(Paths.get(System.getProperty("user.dir") + "/target/test-classes/log.txt"), logOfTask.getBytes());
-                    commonspec.runLocalCommand("cat target/test-classes/log.txt | " + modifyingCommand);
-                    commonspec.getLogger().debug("Log result modified =  " + commonspec.getCommandResult());
-                    if (commonspec.getCommandResult().contains(logToCheck)) {
+                String logPath = getLogPath(logType, service, taskNameOrID, 0, null, taskAttrType);
+                // The command is only run again when there are new lines
+                if (logPath != null && logTail.update(logPath)) {
+                    commonspec.runLocalCommand(modifyingCommand, logTail.getLastLines(), null);
+                    modifiedLog = commonspec.getCommandResult();
+                    commonspec.getLogger().debug("Log result modified =  " + modifiedLog);
+                    if (modifiedLog.contains(logToCheck)) {
                         break;
                     }
                 }
@@ -293,10 +300,10 @@ public class CCTSpec extends BaseGSpec {
                 Thread.sleep(wait * 1000);
             }
         }
-        Assert.assertNotNull(logOfTask, "Error downloading log file");
-        if (!commonspec.getCommandResult().contains(logToCheck)) {
-            Files.write(Paths.get(System.getProperty("user.dir") + "/target/test-classes/log.txt"), logOfTask.getBytes());
-            commonspec.getLogger().error("Last log result modified =  " + commonspec.getCommandResult());
+        Assert.assertNotNull(logTail.getPath(), "Error downloading log file");
+        if (modifiedLog == null || !modifiedLog.contains(logToCheck)) {
+            Files.write(Paths.get(System.getProperty("user.dir") + "/target/test-classes/log.txt"), logTail.getLastLines().getBytes());
+            commonspec.getLogger().error("Last log result modified =  " + modifiedLog);
             fail("The log '" + logToCheck + "' is not contained in the task logs after " + timeout + " seconds. Last log downloaded is saved in target/test-classes/log.txt");
         }
     }
@@ -312,6 +319,23 @@ public class CCTSpec extends BaseGSpec {
      * @throws Exception
      */
     private String getLog(String logType, Integer lastLinesToRead, String service, String taskAttr, Integer position, String taskState, String taskAttrType) throws Exception {
+        String logPath = getLogPath(logType, service, taskAttr, position, taskState, taskAttrType);
+        if (logPath == null) {
+            return null;
+        }
+        return readLogsFromMesos(logPath, lastLinesToRead);
+    }
+
+    /**
+     * Obtain mesos path of a task log
+     *
+     * @param logType  stdout / stderr
+     * @param service  Service ID
+     * @param taskAttr Task name
+     * @return Log path or null
+     * @throws Exception
+     */
+    private String getLogPath(String logType, String service, String taskAttr, Integer position, String taskState, String taskAttrType) throws Exception {
         String logPath;
         if (ThreadProperty.get("cct-marathon-services_id") == null) {
             // Deploy-api
@@ -332,11 +356,10 @@ public class CCTSpec extends BaseGSpec {
                 }
             }
         }
-        if (logPath == null) {
-            return null;
+        if (logPath != null) {
+            commonspec.getLogger().debug("Log path: " + logPath);
         }
-        commonspec.getLogger().debug("Log path: " + logPath);
-        return readLogsFromMesos(logPath, lastLinesToRead);
+        return logPath;
     }
 
     private String generateMesosLogPath(String taskId, String logType) {
@@ -429,41 +452,66 @@ public class CCTSpec extends BaseGSpec {
         // Set REST connection
         commonspec.setCCTConnection(null, null);
 
-        //obtain last offset
-        Future<Response> response = null;
-        response = commonspec.generateRequest("GET", false, null, null, path, "", null);
+        String[] logsArray = readMesosLog(path, lastLines, getMesosLogOffset(path)).split("\n");
+        if (lastLines < 0) {
+            return String.join("\n", logsArray);
+        }
+        return String.join("\n", Arrays.copyOfRange(logsArray, Math.max(logsArray.length - lastLines, 0), logsArray.length));
+    }
+
+    /**
+     * Obtain the size of a mesos log
+     *
+     * @param path : path of the log
+     * @return offset of the end of the log
+     * @throws Exception
+     */
+    private int getMesosLogOffset(String path) throws Exception {
+        Future<Response> response = commonspec.generateRequest("GET", false, null, null, path, "", null);
         if (response.get().getStatusCode() != 200) {
             throw new Exception("Request failed to endpoint: " + path + " with status code: " + response.get().getStatusCode());
         }
-        JSONObject offSetJson = new JSONObject(response.get().getResponseBody());
-        int offSet = offSetJson.getInt("offset");
-        StringBuilder logs = new StringBuilder();
-        int bytes = 50000;
-        if (lastLines >= 0) {
-            //Read 50000 bytes
-            int lineCount = 0;
-            for (int i = offSet; (i >= 0) && (lineCount <= lastLines); i = i - bytes) {
-                String endPoint = path + "&offset=" + (i - bytes) + "&length=" + i;
-                if (i < bytes) {
-                    endPoint = path + "&offset=0&length=" + i;
-                }
-                logs.insert(0, readLogsFromMesosEndpoint(path, endPoint));
-                lineCount = logs.toString().split("\n").length;
-            }
-        } else {
-            for (int i = offSet; i >= 0; i = i - bytes) {
-                String endPoint = path + "&offset=" + (i - bytes) + "&length=" + i;
-                if (i < bytes) {
-                    endPoint = path + "&offset=0&length=" + i;
-                }
-                logs.insert(0, readLogsFromMesosEndpoint(path, endPoint));
+        return new JSONObject(response.get().getResponseBody()).getInt("offset");
+    }
+
+    /**
+     * Read a mesos log backwards from an offset, in chunks of MESOS_LOG_CHUNK_BYTES
+     *
+     * @param path      : path of the log
+     * @param lastLines : stop once this number of lines has been read, -1 to read the whole log
+     * @param offSet    : offset of the end of the log
+     * @return log read, it can contain more than lastLines lines
+     * @throws Exception
+     */
+    private String readMesosLog(String path, Integer lastLines, int offSet) throws Exception {
+        List<String> chunks = new ArrayList<>();
+        int lineCount = 0;
+        for (int end = offSet; end > 0 && (lastLines < 0 || lineCount <= lastLines); end -= MESOS_LOG_CHUNK_BYTES) {
+            String chunk = readMesosLogRange(path, Math.max(end - MESOS_LOG_CHUNK_BYTES, 0), end);
+            chunks.add(chunk);
+            for (int i = chunk.indexOf('\n'); i != -1; i = chunk.indexOf('\n', i + 1)) {
+                lineCount++;
             }
         }
-        String[] logsArray = logs.toString().split("\n");
-        if (lastLines < 0) {
-            return String.join("\n", logsArray).replaceAll("BDTEOL", "\\\\n").replaceAll("BDTTAB", "\\\\t");
+        Collections.reverse(chunks);
+        return String.join("", chunks);
+    }
+
+    /**
+     * Read the bytes of a mesos log between two offsets, in chunks of MESOS_LOG_CHUNK_BYTES
+     *
+     * @param path  : path of the log
+     * @param start : offset of the first byte to read
+     * @param end   : offset after the last byte to read
+     * @return log read
+     * @throws Exception
+     */
+    private String readMesosLogRange(String path, int start, int end) throws Exception {
+        StringBuilder logs = new StringBuilder();
+        for (int i = start; i < end; i += MESOS_LOG_CHUNK_BYTES) {
+            logs.append(readLogsFromMesosEndpoint(path, path + "&offset=" + i + "&length=" + Math.min(MESOS_LOG_CHUNK_BYTES, end - i)));
         }
-        return String.join("\n", Arrays.copyOfRange(logsArray, Math.max(logsArray.length - lastLines, 0), logsArray.length)).replaceAll("BDTEOL", "\\\\n").replaceAll("BDTTAB", "\\\\t");
+        return logs.toString().replaceAll("BDTEOL", "\\\\n").replaceAll("BDTTAB", "\\\\t");
     }
 
     private String readLogsFromMesosEndpoint(String path, String endPoint) throws Exception {
@@ -2607,4 +2655,96 @@ public class CCTSpec extends BaseGSpec {
         Assertions.assertThat(ThreadProperty.get(envVar)).isNotEmpty();
     }
 
+
+    /**
+     * Mesos log read incrementally: every update only downloads the bytes written since the previous one
+     */
+    private class MesosLogTail {
+
+        private final int lastLines;
+
+        private final int overlap;
+
+        private final Deque<String> lines = new ArrayDeque<>();
+
+        private String path;
+
+        private int offset;
+
+        private String partialLine = "";
+
+        private String newLog = "";
+
+        /**
+         * @param lastLines number of last lines kept, -1 to only keep the log read in the last update
+         * @param overlap   chars of the previous update kept with the new log, so matches split between updates are found
+         */
+        MesosLogTail(int lastLines, int overlap) {
+            this.lastLines = lastLines;
+            this.overlap = Math.max(overlap, 0);
+        }
+
+        /**
+         * Read the log written since the previous update. The log is read again if its path changes or it is truncated.
+         *
+         * @param logPath : path of the log
+         * @return true if new log has been read
+         * @throws Exception
+         */
+        boolean update(String logPath) throws Exception {
+            int newOffset = getMesosLogOffset(logPath);
+            if (logPath.equals(path) && newOffset == offset) {
+                return false;
+            }
+            if (!logPath.equals(path) || newOffset < offset) {
+                String log = readMesosLog(logPath, lastLines, newOffset);
+                lines.clear();
+                partialLine = "";
+                newLog = "";
+                path = logPath;
+                append(log);
+            } else {
+                append(readMesosLogRange(logPath, offset, newOffset));
+            }
+            offset = newOffset;
+            return true;
+        }
+
+        private void append(String log) {
+            if (lastLines < 0) {
+                newLog = newLog.substring(Math.max(newLog.length() - overlap, 0)) + log;
+                return;
+            }
+            String[] logLines = (partialLine + log).split("\n", -1);
+            for (int i = 0; i < logLines.length - 1; i++) {
+                lines.addLast(logLines[i]);
+                if (lines.size() > lastLines) {
+                    lines.removeFirst();
+                }
+            }
+            partialLine = logLines[logLines.length - 1];
+        }
+
+        /**
+         * @return last lines of the log, or the log read in the last update if lines are not kept
+         */
+        String getLastLines() {
+            if (lastLines < 0) {
+                return newLog;
+            }
+            List<String> logLines = new ArrayList<>(lines);
+            if (!partialLine.isEmpty()) {
+                logLines.add(partialLine);
+            }
+            return String.join("\n", logLines.subList(Math.max(logLines.size() - lastLines, 0), logLines.size()));
+        }
+
+        boolean contains(String text) {
+            return getLastLines().contains(text);
+        }
+
+        String getPath() {
+            return path;
+        }
+    }
 }
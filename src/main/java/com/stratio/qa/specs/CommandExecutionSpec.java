@@ -17,7 +17,9 @@
 package com.stratio.qa.specs;
 
 import com.jcraft.jsch.Session;
+import com.stratio.qa.utils.MultiNodeCommandExecutor;
 import com.stratio.qa.utils.RemoteSSHConnection;
+import com.stratio.qa.utils.RemoteSSHConnectionPool;
 import com.stratio.qa.utils.RemoteSSHConnectionsUtil;
 import com.stratio.qa.utils.ThreadProperty;
 import cucumber.api.java.en.Given;
@@ -25,12 +27,11 @@ import cucumber.api.java.en.Then;
 import cucumber.api.java.en.When;
 import org.assertj.core.api.Assertions;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.net.URLEncoder;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 
 import static com.stratio.qa.assertions.Assertions.assertThat;
 
@@ -405,61 +406,59 @@ public class CommandExecutionSpec extends BaseGSpec {
     }
 
 
+    /**
+     * Runs the command, or copies the file, in all the nodes concurrently over pooled ssh connections.
+     * <p>
+     * When executed remotely, nodes are reached through the active ssh connection and the file to copy is taken from
+     * it. The outputs of the nodes are saved as command result, and the exit status is the first non zero one.
+     */
     private void executeScriptInAllnodes(String remotely, String commandOrLocalPath, String remotePath, String nodes, String user, String pem) throws Exception {
-        String baseFolder = remotely != null ? "/tmp" : "target/test-classes";
-        String tmpFileBase = baseFolder + "/parallel-script-";
-        long timestamp = new Date().getTime();
-        String finalFile = tmpFileBase + timestamp + ".sh";
-        String pemFile = remotely != null ? baseFolder + "/key" + timestamp + ".pem" : pem;
-        String[] aNodes = obtainNodes(nodes);
-        StringBuilder finalCmd = new StringBuilder("#!/bin/bash\n");
-
-        commonspec.getLogger().debug("Creating script file:" + finalFile);
-
-        //Prepare script command in parallel
-        for (String node : aNodes) {
-            if (remotePath != null) {
-                finalCmd.append(constructSshParallelCopyFileCmd(commandOrLocalPath, remotePath, user, pemFile, node));
-            } else {
-                finalCmd.append(constructSshParallelCmd(commandOrLocalPath, user, pemFile, node));
-            }
-        }
-
-        finalCmd.append("wait");
-
-        //Save the script and send it to the running ssh (dcos-cli) connection and execute it
-        BufferedWriter writer = new BufferedWriter(new FileWriter(finalFile));
-        writer.write(finalCmd.toString());
-        writer.close();
-
-        if (remotely != null) {
-            commonspec.getLogger().debug("Uploading script file:" + finalFile);
-            copyToRemoteFile(finalFile, baseFolder);
-            copyToRemoteFile(pem, pemFile);
-        }
-
-        //Now launch it
-        commonspec.getLogger().debug("Giving permissions:" + finalFile);
-        if (remotely != null) {
-            commonspec.getRemoteSSHConnection().runCommand("chmod +x " + finalFile);
-            commonspec.getRemoteSSHConnection().runCommand("chmod 400 " + pemFile);
-        } else {
-            commonspec.runLocalCommand("chmod +x " + finalFile);
+        List<String> aNodes = Arrays.asList(obtainNodes(nodes));
+        Session gateway = remotely != null ? commonspec.getRemoteSSHConnection().getSession() : null;
+        String localPath = commandOrLocalPath;
+        if (remotePath != null && remotely != null) {
+            localPath = "target/test-classes/parallel-copy-" + new Date().getTime() + "/" + new File(commandOrLocalPath).getName();
+            commonspec.getLogger().debug("Downloading file to copy:" + localPath);
+            commonspec.getRemoteSSHConnection().copyFrom(commandOrLocalPath, localPath);
         }
-
-        commonspec.getLogger().debug("Executing script file:" + finalFile);
-        if (remotely != null) {
-            commonspec.runCommandAndGetResult(finalFile);
-        } else {
-            commonspec.runLocalCommand(finalFile);
+        final String fileToCopy = localPath;
+        MultiNodeCommandExecutor.NodeTask task = node -> {
+            RemoteSSHConnection connection = RemoteSSHConnectionPool.INSTANCE.getConnection(user, node, pem, gateway);
+            if (remotePath == null) {
+                return connection.executeCommand(commandOrLocalPath, null);
+            }
+            connection.copyTo(fileToCopy, remotePath);
+            return new RemoteSSHConnection.CommandResult("", 0);
+        };
+
+        commonspec.getLogger().debug("Executing in nodes: " + aNodes);
+        List<MultiNodeCommandExecutor.NodeResult> results;
+        try {
+            results = new MultiNodeCommandExecutor().execute(aNodes, task);
+        } finally {
+            if (!fileToCopy.equals(commandOrLocalPath)) {
+                commonspec.runLocalCommand("rm -Rf " + new File(fileToCopy).getParent());
+            }
         }
 
-        //Delete file
-        commonspec.runLocalCommand("rm -Rf " + finalFile);
-        if (remotely != null) {
-            commonspec.getRemoteSSHConnection().runCommand("rm -Rf " + finalFile);
-            commonspec.getRemoteSSHConnection().runCommand("rm -Rf " + pemFile);
+        StringBuilder output = new StringBuilder();
+        int exitStatus = 0;
+        for (MultiNodeCommandExecutor.NodeResult result : results) {
+            if (result.getError() != null) {
+                commonspec.getLogger().warn("Node " + result.getNode() + " failed: " + result.getError());
+            } else {
+                commonspec.getLogger().debug("Node " + result.getNode() + " exit status: " + result.getExitStatus());
+            }
+            if (exitStatus == 0) {
+                exitStatus = result.getExitStatus();
+            }
+            if (output.length() > 0 && output.charAt(output.length() - 1) != '\n') {
+                output.append('\n');
+            }
+            output.append(result.getOutput());
         }
+        commonspec.setCommandResult(output.toString());
+        commonspec.setCommandExitStatus(exitStatus);
     }
 
     private String[] obtainNodes(String nodes) throws Exception {
@@ -481,22 +480,6 @@ public class CommandExecutionSpec extends BaseGSpec {
         return splitted;
     }
 
-    private String constructSshParallelCmd(String command, String user, String pem, String node) {
-        return "ssh -o StrictHostKeyChecking=no -o " +
-                "UserKnownHostsFile=/dev/null " +
-                "-i " + pem + " " +
-                user + "@" + node + " '" +
-                command + "' &\n";
-    }
-
-    private String constructSshParallelCopyFileCmd(String localPath, String remotePath, String user, String pem, String node) {
-        return "scp -o StrictHostKeyChecking=no -o " +
-                "UserKnownHostsFile=/dev/null " +
-                "-rp -i " + pem + " " + localPath + " " +
-                user + "@" + node + ":" +
-                remotePath + " &\n";
-    }
-
     /**
      * Set SSH connection as active
      *
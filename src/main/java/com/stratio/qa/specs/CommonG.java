@@ -27,7 +27,9 @@ import com.jayway.jsonpath.Configuration;
 import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
 import com.jayway.jsonpath.spi.json.GsonJsonProvider;
+import com.jayway.jsonpath.spi.json.JsonOrgJsonProvider;
 import com.jayway.jsonpath.spi.mapper.GsonMappingProvider;
+import com.jayway.jsonpath.spi.mapper.JsonOrgMappingProvider;
 import com.mongodb.DBCursor;
 import com.mongodb.DBObject;
 import com.ning.http.client.AsyncHttpClient;
@@ -79,6 +81,7 @@ import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -97,6 +100,9 @@ public class CommonG {
 
     private static final int DEFAULT_SLEEP_TIME = 1500;
 
+    private static final Configuration JSON_ORG_CONFIGURATION = Configuration.builder().jsonProvider(new JsonOrgJsonProvider())
+            .mappingProvider(new JsonOrgMappingProvider()).build();
+
     private final Logger logger = LoggerFactory.getLogger(ThreadProperty.get("class"));
 
     private RemoteWebDriver driver = null;
@@ -143,6 +149,8 @@ public class CommonG {
 
     private Map<String, List<String>> previousSqlResult = null;
 
+    private List<String> previousSqlTable = null;
+
     MarathonApiClient marathonClient;
 
     MarathonUtils marathonUtils;
@@ -685,6 +693,11 @@ public class CommonG {
 
     public void setResponse(String endpoint, Response response) throws IOException {
         Integer statusCode = response.getStatusCode();
+        if (statusCode == 401 && getRestHost() != null) {
+            // cached sso tokens and cluster information for this host are no longer valid
+            GosecSSOUtils.invalidateTokens(getRestHost());
+            DcosBootstrapUtil.INSTANCE.invalidate(getRestHost());
+        }
         String httpResponse = response.getResponseBody();
         List<Cookie> cookies = response.getCookies();
         this.response = new HttpResponse(statusCode, httpResponse, cookies);
@@ -830,7 +843,6 @@ public class CommonG {
     public String modifyData(String data, String type, DataTable modifications) throws Exception {
         String modifiedData = data;
         String typeJsonObject = "";
-        String nullValue = "";
 
         JSONArray jArray;
         JSONObject jObject;
@@ -840,7 +852,18 @@ public class CommonG {
         boolean array = false;
 
         if ("json".equals(type) || "gov".equals(type) || "servicegov".equals(type) || "scim".equals(type)) {
-            LinkedHashMap jsonAsMap = new LinkedHashMap();
+            if (modifications.cells().isEmpty()) {
+                return modifiedData;
+            }
+            // Parse the document once and apply every modification to the same tree
+            if (modifiedData.startsWith("[") && modifiedData.endsWith("]")) {
+                modifiedData = "{\"content\":" + modifiedData + "}";
+                array = true;
+            } else {
+                modifiedData = JsonValue.readHjson(modifiedData).asObject().toString();
+            }
+            DocumentContext context = JsonPath.using(JSON_ORG_CONFIGURATION).parse(modifiedData);
+
             for (int i = 0; i < modifications.cells().size(); i++) {
                 String composeKey = modifications.cells().get(i).get(0);
                 String operation = modifications.cells().get(i).get(1);
@@ -850,21 +873,12 @@ public class CommonG {
                     typeJsonObject = modifications.cells().get(i).get(3);
                 }
 
-                if (modifiedData.startsWith("[") && modifiedData.endsWith("]")) {
-                    modifiedData = "{\"content\":" + modifiedData + "}";
-                    array = true;
-                } else {
-                    JsonObject object = new JsonObject(JsonValue.readHjson(modifiedData).asObject());
-                    removeNulls(object);
-                    modifiedData = JsonValue.readHjson(object.toString()).toString();
-                }
-
                 switch (operation.toUpperCase()) {
                     case "DELETE":
                         if (array) {
                             composeKey = "$.content" + composeKey.substring(1);
                         }
-                        jsonAsMap = JsonPath.parse(modifiedData).delete(composeKey).json();
+                        context.delete(composeKey);
                         break;
                     case "ADD":
                         if (array) {
@@ -886,39 +900,39 @@ public class CommonG {
                             if (!"[]".equals(newValue)) {
                                 jArray = new JSONArray(newValue);
                             }
-                            jsonAsMap = JsonPath.parse(modifiedData).put(newComposeKey, newKey, jArray).json();
+                            context.put(newComposeKey, newKey, jArray);
                             break;
                         } else if ("object".equals(typeJsonObject)) {
                             jObject = new JSONObject();
                             if (!"{}".equals(newValue)) {
                                 jObject = new JSONObject(newValue);
                             }
-                            jsonAsMap = JsonPath.parse(modifiedData).put(newComposeKey, newKey, jObject).json();
+                            context.put(newComposeKey, newKey, jObject);
                             break;
                         } else if ("string".equals(typeJsonObject)) {
-                            jsonAsMap = JsonPath.parse(modifiedData).put(newComposeKey, newKey, newValue).json();
+                            context.put(newComposeKey, newKey, newValue);
                             break;
                         } else if ("number".equals(typeJsonObject)) {
                             jNumber = new Double(newValue);
-                            jsonAsMap = JsonPath.parse(modifiedData).put(newComposeKey, newKey, jNumber).json();
+                            context.put(newComposeKey, newKey, jNumber);
                             break;
                         } else if ("long".equals(typeJsonObject)) {
                             jLong = new Long(newValue);
-                            jsonAsMap = JsonPath.parse(modifiedData).set(composeKey, jLong).json();
+                            context.set(composeKey, jLong);
                             break;
                         } else if ("boolean".equals(typeJsonObject)) {
                             jBoolean = new Boolean(newValue);
-                            jsonAsMap = JsonPath.parse(modifiedData).put(newComposeKey, newKey, jBoolean).json();
+                            context.put(newComposeKey, newKey, jBoolean);
                             break;
                         } else if ("null".equals(typeJsonObject)) {
-                            nullValue = JsonPath.parse(modifiedData).put(newComposeKey, newKey, null).jsonString();
+                            context.put(newComposeKey, newKey, JSONObject.NULL);
                             break;
                         } else {
-                            String replaceValue = JsonPath.parse(modifiedData).read(composeKey);
+                            String replaceValue = context.read(composeKey);
                             String toBeReplaced = newValue.split("->")[0];
                             String replacement = newValue.split("->")[1];
                             newValue = replaceValue.replace(toBeReplaced, replacement);
-                            jsonAsMap = JsonPath.parse(modifiedData).put(newComposeKey, newKey, newValue).json();
+                            context.put(newComposeKey, newKey, newValue);
                             break;
                         }
 //                        jsonAsMap = JsonPath.parse(modifiedData).put(newComposeKey, newKey, newValue).json();
@@ -927,21 +941,21 @@ public class CommonG {
                         if (array) {
                             composeKey = "$.content" + composeKey.substring(1);
                         }
-                        jsonAsMap = JsonPath.parse(modifiedData).set(composeKey, newValue).json();
+                        context.set(composeKey, newValue);
                         break;
                     case "APPEND":
                         if (array) {
                             composeKey = "$.content" + composeKey.substring(1);
                         }
-                        String appendValue = JsonPath.parse(modifiedData).read(composeKey);
-                        jsonAsMap = JsonPath.parse(modifiedData).set(composeKey, appendValue + newValue).json();
+                        String appendValue = context.read(composeKey);
+                        context.set(composeKey, appendValue + newValue);
                         break;
                     case "PREPEND":
                         if (array) {
                             composeKey = "$.content" + composeKey.substring(1);
                         }
-                        String prependValue = JsonPath.parse(modifiedData).read(composeKey);
-                        jsonAsMap = JsonPath.parse(modifiedData).set(composeKey, newValue + prependValue).json();
+                        String prependValue = context.read(composeKey);
+                        context.set(composeKey, newValue + prependValue);
                         break;
                     case "REPLACE":
                         if (array) {
@@ -952,39 +966,39 @@ public class CommonG {
                             if (!"[]".equals(newValue)) {
                                 jArray = new JSONArray(newValue);
                             }
-                            jsonAsMap = JsonPath.parse(modifiedData).set(composeKey, jArray).json();
+                            context.set(composeKey, jArray);
                             break;
                         } else if ("object".equals(typeJsonObject)) {
                             jObject = new JSONObject();
                             if (!"{}".equals(newValue)) {
                                 jObject = new JSONObject(newValue);
                             }
-                            jsonAsMap = JsonPath.parse(modifiedData).set(composeKey, jObject).json();
+                            context.set(composeKey, jObject);
                             break;
                         } else if ("string".equals(typeJsonObject)) {
-                            jsonAsMap = JsonPath.parse(modifiedData).set(composeKey, newValue).json();
+                            context.set(composeKey, newValue);
                             break;
                         } else if ("number".equals(typeJsonObject)) {
                             jNumber = new Double(newValue);
-                            jsonAsMap = JsonPath.parse(modifiedData).set(composeKey, jNumber).json();
+                            context.set(composeKey, jNumber);
                             break;
                         } else if ("long".equals(typeJsonObject)) {
                             jLong = new Long(newValue);
-                            jsonAsMap = JsonPath.parse(modifiedData).set(composeKey, jLong).json();
+                            context.set(composeKey, jLong);
                             break;
                         } else if ("boolean".equals(typeJsonObject)) {
                             jBoolean = new Boolean(newValue);
-                            jsonAsMap = JsonPath.parse(modifiedData).set(composeKey, jBoolean).json();
+                            context.set(composeKey, jBoolean);
                             break;
                         } else if ("null".equals(typeJsonObject)) {
-                            nullValue = JsonPath.parse(modifiedData).set(composeKey, null).jsonString();
+                            context.set(composeKey, JSONObject.NULL);
                             break;
                         } else {
-                            String replaceValue = JsonPath.parse(modifiedData).read(composeKey);
+                            String replaceValue = context.read(composeKey);
                             String toBeReplaced = newValue.split("->")[0];
                             String replacement = newValue.split("->")[1];
                             newValue = replaceValue.replace(toBeReplaced, replacement);
-                            jsonAsMap = JsonPath.parse(modifiedData).set(composeKey, newValue).json();
+                            context.set(composeKey, newValue);
                             break;
                         }
                     case "ADDTO":
@@ -996,32 +1010,32 @@ public class CommonG {
                             if (!"[]".equals(newValue)) {
                                 jArray = new JSONArray(newValue);
                             }
-                            jsonAsMap = JsonPath.parse(modifiedData).add(composeKey, jArray).json();
+                            context.add(composeKey, jArray);
                             break;
                         } else if ("object".equals(typeJsonObject)) {
                             jObject = new JSONObject();
                             if (!"{}".equals(newValue)) {
                                 jObject = new JSONObject(newValue);
                             }
-                            jsonAsMap = JsonPath.parse(modifiedData).add(composeKey, jObject).json();
+                            context.add(composeKey, jObject);
                             break;
                         } else if ("string".equals(typeJsonObject)) {
-                            jsonAsMap = JsonPath.parse(modifiedData).add(composeKey, newValue).json();
+                            context.add(composeKey, newValue);
                             break;
                         } else if ("number".equals(typeJsonObject)) {
                             jNumber = new Double(newValue);
-                            jsonAsMap = JsonPath.parse(modifiedData).add(composeKey, jNumber).json();
+                            context.add(composeKey, jNumber);
                             break;
                         } else if ("long".equals(typeJsonObject)) {
                             jLong = new Long(newValue);
-                            jsonAsMap = JsonPath.parse(modifiedData).set(composeKey, jLong).json();
+                            context.set(composeKey, jLong);
                             break;
                         } else if ("boolean".equals(typeJsonObject)) {
                             jBoolean = new Boolean(newValue);
-                            jsonAsMap = JsonPath.parse(modifiedData).add(composeKey, jBoolean).json();
+                            context.add(composeKey, jBoolean);
                             break;
                         } else if ("null".equals(typeJsonObject)) {
-                            nullValue = JsonPath.parse(modifiedData).add(composeKey, null).jsonString();
+                            context.add(composeKey, JSONObject.NULL);
                             break;
                         } else {
                             // TO-DO: understand  newValue.split("->")[0];  and  newValue.split("->")[1];
@@ -1032,18 +1046,12 @@ public class CommonG {
                             composeKey = "$.content" + composeKey.substring(1);
                         }
                         this.headers.put(composeKey, newValue);
-                        jsonAsMap = JsonPath.parse(modifiedData).json();
                         break;
                     default:
                         throw new Exception("Modification type does not exist: " + operation);
                 }
-
-                modifiedData = new JSONObject(jsonAsMap).toString();
-                if (!"".equals(nullValue)) {
-                    modifiedData = nullValue;
-                }
-                modifiedData = modifiedData.replaceAll("\"TO_BE_NULL\"", "null");
             }
+            modifiedData = context.jsonString();
         } else {
             for (int i = 0; i < modifications.cells().size(); i++) {
                 String value = modifications.cells().get(i).get(0);
@@ -1877,37 +1885,41 @@ public class CommonG {
      * @param command command used to be run locally
      */
     public void runLocalCommand(String command) throws Exception {
+        runLocalCommand(command, null, null);
+    }
+
+    /**
+     * Runs a command locally, streaming its output
+     *
+     * @param command      command used to be run locally
+     * @param lineListener receives every line of stdout as soon as it is read, can be null
+     */
+    public void runLocalCommand(String command, Consumer<String> lineListener) throws Exception {
+        runLocalCommand(command, null, lineListener);
+    }
 
-        String result = "";
-        String line;
-        Process p;
+    /**
+     * Runs a command locally, writing the input to its stdin and streaming its output
+     *
+     * @param command      command used to be run locally
+     * @param input        text written to the command stdin, can be null
+     * @param lineListener receives every line of stdout as soon as it is read, can be null
+     */
+    public void runLocalCommand(String command, String input, Consumer<String> lineListener) throws Exception {
+        LocalCommandRunner.Result result;
         try {
-            p = Runtime.getRuntime().exec(new String[]{"/bin/sh", "-c", command});
-            p.waitFor();
+            result = new LocalCommandRunner().run(command, input, lineListener);
         } catch (java.io.IOException e) {
             this.commandExitStatus = 1;
             this.commandResult = "Error";
             return;
         }
 
-        BufferedReader input = new BufferedReader(new InputStreamReader(p.getInputStream()));
-        while ((line = input.readLine()) != null) {
-            if (result.isEmpty()) {
-                result += line;
-            } else {
-                result += "\n" + line;
-            }
-        }
-        input.close();
-        this.commandResult = result;
-        this.commandExitStatus = p.exitValue();
-
-        p.destroy();
-
-        if (p.isAlive()) {
-            p.destroyForcibly();
+        if (!result.getError().isEmpty()) {
+            logger.debug("Command stderr:\n{}", result.getError());
         }
-
+        this.commandResult = result.getOutput();
+        this.commandExitStatus = result.getExitStatus();
     }
 
     public int getCommandExitStatus() {
@@ -2631,6 +2643,19 @@ public class CommonG {
         this.previousSqlResult = previousSqlResult;
     }
 
+    /**
+     * Get the last SQL result as a flat list: column names followed by the values of every row.
+     *
+     * @return previous SQL result
+     */
+    public List<String> getPreviousSqlTable() {
+        return previousSqlTable;
+    }
+
+    public void setPreviousSqlTable(List<String> previousSqlTable) {
+        this.previousSqlTable = previousSqlTable;
+    }
+
     /**
      * Get the Vault utils.
      *
@@ -59,7 +59,7 @@ public class CypressSpec extends BaseGSpec {
 
         this.commonspec.getLogger().info("Executing cypress: " + command);
 
-        commonspec.runLocalCommand(command);
+        commonspec.runLocalCommand(command, line -> commonspec.getLogger().debug(line));
         commonspec.runCommandLoggerAndEnvVar(exitStatus, envVar, Boolean.TRUE);
         Assertions.assertThat(commonspec.getCommandExitStatus()).isEqualTo(exitStatus);
     }
@@ -68,7 +68,7 @@ public class CypressSpec extends BaseGSpec {
     public void executeAllCypressTests(String url, String token, Integer sExitStatus, String envVar) throws Exception {
         Integer exitStatus = sExitStatus == null ? 0 : sExitStatus;
         String Command = "CYPRESS_BASE_URL=https://" + url + " CYPRESS_TOKEN=" + token + " npx cypress run  ";
-        commonspec.runLocalCommand(Command);
+        commonspec.runLocalCommand(Command, line -> commonspec.getLogger().debug(line));
         commonspec.runCommandLoggerAndEnvVar(exitStatus, envVar, Boolean.TRUE);
         Assertions.assertThat(commonspec.getCommandExitStatus()).isEqualTo(exitStatus);
 
@@ -26,6 +26,7 @@ import com.mongodb.util.JSON;
 import com.ning.http.client.Response;
 import com.stratio.qa.assertions.DBObjectsAssert;
 import com.stratio.qa.exceptions.DBException;
+import com.stratio.qa.utils.ElasticSearchUtils;
 import com.stratio.qa.utils.JDBCConnection;
 import com.stratio.qa.utils.ThreadProperty;
 import cucumber.api.java.en.Given;
@@ -35,6 +36,8 @@ import io.cucumber.datatable.DataTable;
 import org.assertj.core.api.Assertions;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.json.JSONArray;
+import org.json.JSONObject;
 import org.testng.Assert;
 import org.testng.asserts.Assertion;
 
@@ -63,6 +66,12 @@ public class DatabaseSpec extends BaseGSpec {
 
     public static final int VALUE_SUBSTRING = 3;
 
+    /**
+     * Rows fetched per round trip when reading JDBC results (JDBC_FETCH_SIZE, 1000 by default).
+     * PostgreSQL only uses it when autocommit is disabled, so reads are done in a transaction (see closeRead).
+     */
+    private static final int JDBC_FETCH_SIZE = Integer.parseInt(System.getProperty("JDBC_FETCH_SIZE", "1000"));
+
     /**
      * Generic constructor.
      *
@@ -203,15 +212,16 @@ public class DatabaseSpec extends BaseGSpec {
         try {
             commonspec.getCassandraClient().useKeyspace(keyspace);
             int attrLength = datatable.cells().get(0).size();
-            Map<String, Object> fields = new HashMap<String, Object>();
+            List<Map<String, Object>> rows = new ArrayList<>();
             for (int e = 1; e < datatable.cells().size(); e++) {
+                Map<String, Object> fields = new HashMap<String, Object>();
                 for (int i = 0; i < attrLength; i++) {
                     fields.put(datatable.cells().get(0).get(i), datatable.cells().get(e).get(i));
 
                 }
-                commonspec.getCassandraClient().insertData(keyspace + "." + table, fields);
-
+                rows.add(fields);
             }
+            commonspec.getCassandraClient().insertData(keyspace + "." + table, rows);
         } catch (Exception e) {
             commonspec.getLogger().debug("Exception captured");
             commonspec.getLogger().debug(e.toString());
@@ -621,6 +631,26 @@ public class DatabaseSpec extends BaseGSpec {
         commonspec.getElasticSearchClient().indexDocument(indexName, id, retrieveData);
     }
 
+    /**
+     * Index the documents of a JSON array with bulk requests.
+     *
+     * @param baseData  file with a JSON array of documents
+     * @param indexName
+     * @param idField   field of each document to be used as its id (optional, ES generates ids otherwise)
+     * @throws Exception
+     */
+    @When("^I index the documents in '(.+?)' in the index named '(.+?)'( using field '(.+?)' as id)?$")
+    public void indexElasticsearchDocuments(String baseData, String indexName, String idField) throws Exception {
+        JSONArray array = new JSONArray(commonspec.retrieveData(baseData, "json"));
+        List<Map.Entry<String, String>> documents = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject document = array.getJSONObject(i);
+            String id = idField != null ? String.valueOf(document.get(idField)) : null;
+            documents.add(new AbstractMap.SimpleEntry<>(id, document.toString()));
+        }
+        commonspec.getElasticSearchClient().indexDocuments(indexName, documents);
+    }
+
     /**
      * Check that the ElasticSearch index exists.
      *
@@ -665,6 +695,7 @@ public class DatabaseSpec extends BaseGSpec {
     public void executeQuery(String query) throws Exception {
         ThreadProperty.remove("querysize");
         getCommonSpec().setPreviousSqlResult(null);
+        getCommonSpec().setPreviousSqlTable(null);
         Statement myStatement = null;
         int result = 0;
         Connection myConnection = this.commonspec.getConnection();
@@ -695,6 +726,7 @@ public class DatabaseSpec extends BaseGSpec {
         try {
             ThreadProperty.remove("querysize");
             getCommonSpec().setPreviousSqlResult(null);
+            getCommonSpec().setPreviousSqlTable(null);
             Statement myStatement = myConnection.createStatement();
             myStatement.execute(query);
             myStatement.close();
@@ -719,57 +751,76 @@ public class DatabaseSpec extends BaseGSpec {
     @When("^I query the database with '(.+?)'$")
     public void selectData(String query) throws Exception {
         Statement myStatement = null;
-        //postgres table
+        //postgres table: column names followed by values
         List<String> sqlTable = new ArrayList<String>();
-        List<String> sqlTableAux = new ArrayList<String>();
         Map<String, List<String>> sqlResultMap = new HashMap<>();
         Connection myConnection = this.commonspec.getConnection();
         if (myConnection == null) {
             throw new Exception("JDBC connection is not opened");
         }
         java.sql.ResultSet rs = null;
+        boolean autoCommit = myConnection.getAutoCommit();
         try {
+            myConnection.setAutoCommit(false);
             myStatement = myConnection.createStatement();
+            myStatement.setFetchSize(JDBC_FETCH_SIZE);
             rs = myStatement.executeQuery(query);
             //column names
             ResultSetMetaData resultSetMetaData = rs.getMetaData();
             int count = resultSetMetaData.getColumnCount();
+            List<List<String>> columns = new ArrayList<>(count);
             for (int i = 1; i <= count; i++) {
-                sqlTable.add(resultSetMetaData.getColumnName(i).toString());
-                sqlResultMap.put(resultSetMetaData.getColumnName(i), new ArrayList<>());
+                sqlTable.add(resultSetMetaData.getColumnName(i));
+                columns.add(sqlResultMap.computeIfAbsent(resultSetMetaData.getColumnName(i), name -> new ArrayList<>()));
             }
-            //takes column names and column count
             int resultSize = 0;
             while (rs.next()) {
                 resultSize++;
                 for (int i = 1; i <= count; i++) {
-                    //aux list without column names
-                    sqlTableAux.add(rs.getObject(i) != null ? rs.getObject(i).toString() : "<EMPTY>");
-                    List<String> previousList = sqlResultMap.get(resultSetMetaData.getColumnName(i));
-                    if (previousList == null) {
-                        previousList = new ArrayList<>();
-                    }
-                    previousList.add(rs.getObject(i) != null ? rs.getObject(i).toString() : "<EMPTY>");
-                    sqlResultMap.put(resultSetMetaData.getColumnName(i), previousList);
+                    String value = cellValue(rs, i);
+                    sqlTable.add(value);
+                    columns.get(i - 1).add(value);
                 }
             }
             ThreadProperty.set("querysize", String.valueOf(resultSize));
-            sqlTable.addAll(sqlTableAux);
-
-            //sends raws to environment variable
-            for (int i = 0; i < sqlTable.size(); i++) {
-                ThreadProperty.set("queryresponse" + i, sqlTable.get(i));
-            }
-            ThreadProperty.remove("queryresponse" + sqlTable.size());
+            getCommonSpec().setPreviousSqlTable(sqlTable);
             getCommonSpec().setPreviousSqlResult(sqlResultMap);
-            rs.close();
-            myStatement.close();
         } catch (Exception e) {
             e.printStackTrace();
             Assertions.assertThat(rs).as("There are no response from SELECT").isNotNull();
+        } finally {
+            closeRead(myConnection, autoCommit, myStatement, rs);
         }
     }
 
+    /**
+     * Closes the result set and statement of a read and, if autocommit was enabled before the read, ends its
+     * transaction and enables autocommit again.
+     */
+    private static void closeRead(Connection connection, boolean autoCommit, Statement statement, java.sql.ResultSet rs) throws SQLException {
+        try {
+            if (rs != null) {
+                rs.close();
+            }
+            if (statement != null) {
+                statement.close();
+            }
+        } finally {
+            if (autoCommit) {
+                try {
+                    connection.commit();
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            }
+        }
+    }
+
+    private static String cellValue(java.sql.ResultSet rs, int column) throws SQLException {
+        Object value = rs.getObject(column);
+        return value != null ? value.toString() : "<EMPTY>";
+    }
+
     /**
      * Checks if a keyspaces exists in Cassandra.
      *
@@ -1014,12 +1065,13 @@ public class DatabaseSpec extends BaseGSpec {
      */
     @Then("^The Elasticsearch index named '(.+?)' contains a column named '(.+?)' with the value '(.+?)'$")
     public void elasticSearchIndexContainsDocument(String indexName, String columnName, String columnValue) throws Exception {
-        Assertions.assertThat((commonspec.getElasticSearchClient().searchSimpleFilterElasticsearchQuery(
+        try (ElasticSearchUtils.ScrollIterator hits = commonspec.getElasticSearchClient().scrollSimpleFilterElasticsearchQuery(
                 indexName,
                 columnName,
                 columnValue,
-                "equals"
-        ).size()) > 0).isTrue().withFailMessage("The index does not contain that document");
+                "equals")) {
+            Assertions.assertThat(hits.hasNext()).isTrue().withFailMessage("The index does not contain that document");
+        }
     }
 
     /*
@@ -1101,49 +1153,48 @@ public class DatabaseSpec extends BaseGSpec {
         Statement myStatement = null;
         java.sql.ResultSet rs = null;
 
-        //from postgres table
-        List<String> sqlTable = new ArrayList<String>();
-        List<String> sqlTableAux = new ArrayList<String>();
-        //from Cucumber Datatable
-        List<String> tablePattern = new ArrayList<String>();
-        //comparison is by lists of string
-        tablePattern = dataTable.asList(String.class);
-
+        //from Cucumber Datatable, compared cell by cell while rows are fetched
+        List<String> tablePattern = dataTable.asList(String.class);
 
         Connection myConnection = this.commonspec.getConnection();
         if (myConnection == null) {
             throw new Exception("JDBC connection is not opened");
         }
         String query = "SELECT * FROM " + tableName + " order by " + "id" + ";";
+        boolean autoCommit = myConnection.getAutoCommit();
         try {
+            myConnection.setAutoCommit(false);
             myStatement = myConnection.createStatement();
+            myStatement.setFetchSize(JDBC_FETCH_SIZE);
             rs = myStatement.executeQuery(query);
 
             //takes column names and culumn count
             ResultSetMetaData resultSetMetaData = rs.getMetaData();
             int count = resultSetMetaData.getColumnCount();
-            for (int i = 1; i <= count; i++) {
-                sqlTable.add(resultSetMetaData.getColumnName(i).toString());
+            int position = 0;
+            for (int i = 1; i <= count; i++, position++) {
+                assertCell(tablePattern, position, resultSetMetaData.getColumnName(i));
             }
 
-            //takes column names and culumn count
             while (rs.next()) {
-                for (int i = 1; i <= count; i++) {
-                    //aux list without column names
-                    sqlTableAux.add(rs.getObject(i).toString());
+                for (int i = 1; i <= count; i++, position++) {
+                    assertCell(tablePattern, position, cellValue(rs, i));
                 }
             }
-            sqlTable.addAll(sqlTableAux);
-
-            assertThat(sqlTable).as("Not equal elements!").isEqualTo(tablePattern);
-            rs.close();
-            myStatement.close();
+            assertThat(position).as("Not equal elements! Expected " + tablePattern.size() + " elements, table has " + position).isEqualTo(tablePattern.size());
         } catch (Exception e) {
             e.printStackTrace();
             assertThat(rs).as("There are no table " + tableName).isNotNull();
+        } finally {
+            closeRead(myConnection, autoCommit, myStatement, rs);
         }
     }
 
+    private static void assertCell(List<String> tablePattern, int position, String value) {
+        assertThat(position).as("Not equal elements! Table has more elements than the expected " + tablePattern.size()).isLessThan(tablePattern.size());
+        assertThat(value).as("Not equal elements! Element " + position).isEqualTo(tablePattern.get(position));
+    }
+
     /*
      * closes opened database
      *
@@ -1165,20 +1216,7 @@ public class DatabaseSpec extends BaseGSpec {
         List<String> tablePattern = new ArrayList<String>();
         tablePattern = dataTable.asList(String.class);
 
-        //the result from select
-        List<String> sqlTable = new ArrayList<String>();
-
-        //the result is taken from previous step
-        for (int i = 0; ThreadProperty.get("queryresponse" + i) != null; i++) {
-            String ip_value = ThreadProperty.get("queryresponse" + i);
-            sqlTable.add(i, ip_value);
-        }
-
-        for (int i = 0; ThreadProperty.get("queryresponse" + i) != null; i++) {
-            ThreadProperty.remove("queryresponse" + i);
-        }
-
-        assertThat(tablePattern).as("response is not equal to the expected").isEqualTo(sqlTable);
+        compareList(tablePattern);
     }
 
     /**
@@ -1521,17 +1559,9 @@ public class DatabaseSpec extends BaseGSpec {
 
     public void compareList(List<String> tablePattern) throws Exception {
 
-        List<String> sqlTable = new ArrayList<String>();
-
         // the result is taken from previous step
-        for (int i = 0; ThreadProperty.get("queryresponse" + i) != null; i++) {
-            String ip_value = ThreadProperty.get("queryresponse" + i);
-            sqlTable.add(i, ip_value);
-        }
-
-        for (int i = 0; ThreadProperty.get("queryresponse" + i) != null; i++) {
-            ThreadProperty.remove("queryresponse" + i);
-        }
+        List<String> sqlTable = getCommonSpec().getPreviousSqlTable() != null ? getCommonSpec().getPreviousSqlTable() : new ArrayList<String>();
+        getCommonSpec().setPreviousSqlTable(null);
 
         assertThat(tablePattern).as("response is not equal to the expected").isEqualTo(sqlTable);
     }
@@ -19,6 +19,7 @@ package com.stratio.qa.specs;
 import com.auth0.jwt.JWTSigner;
 import com.jayway.jsonpath.JsonPath;
 import com.ning.http.client.Response;
+import com.stratio.qa.utils.DcosBootstrapUtil;
 import com.stratio.qa.utils.GosecSSOUtils;
 import com.stratio.qa.utils.RemoteSSHConnection;
 import com.stratio.qa.utils.RemoteSSHConnectionsUtil;
@@ -1466,6 +1467,15 @@ public class DcosSpec extends BaseGSpec {
 
     }
 
+    /**
+     * Discards the cluster information cached by @dcos scenarios, so next @dcos scenario obtains it again
+     * (i.e. after upgrading a service or when the SSO token has expired)
+     */
+    @Given("^I invalidate cluster bootstrap information$")
+    public void invalidateBootstrapInfo() {
+        DcosBootstrapUtil.INSTANCE.invalidate();
+    }
+
     /**
      * Obtain service info from marathon
      *
@@ -16,10 +16,11 @@
 
 package com.stratio.qa.specs;
 
-import com.ning.http.client.AsyncHttpClient;
-import com.ning.http.client.AsyncHttpClientConfig;
 import com.stratio.qa.clients.k8s.KubernetesClient;
 import com.stratio.qa.exceptions.SuppressableException;
+import com.stratio.qa.utils.AsyncHttpClientUtil;
+import com.stratio.qa.utils.DcosBootstrapUtil;
+import com.stratio.qa.utils.RemoteWebDriverUtil;
 import com.stratio.qa.utils.StepException;
 import com.stratio.qa.utils.ThreadProperty;
 import cucumber.api.Result;
@@ -42,8 +43,10 @@ import org.openqa.selenium.remote.internal.HttpClientFactory;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Properties;
 import java.util.concurrent.TimeUnit;
 
 import static org.testng.Assert.fail;
@@ -68,14 +71,21 @@ public class HookGSpec extends BaseGSpec {
 
     private static final String alwaysTAG = "@always";
 
-    private static boolean prevScenarioFailed = false;
+    // Shared by all the workers, a failed important scenario aborts the whole execution
+    private static volatile boolean prevScenarioFailed = false;
 
     private static final String quietasdefault = System.getProperty("quietasdefault", "true");
 
-    public static boolean loggerEnabled = true;
+    private static final ThreadLocal<Boolean> loggerEnabled = new ThreadLocal<Boolean>() {
+        protected Boolean initialValue() {
+            return true;
+        }
+    };
 
     public static final int ORDER_30 = 30;
 
+    private String seleniumSessionKey;
+
     /**
      * Default constructor.
      *
@@ -119,9 +129,28 @@ public class HookGSpec extends BaseGSpec {
     }
 
 
+    /**
+     * Whether steps of the scenario running in the current thread must be logged.
+     *
+     * @return boolean
+     */
+    public static boolean isLoggerEnabled() {
+        return loggerEnabled.get();
+    }
+
+    /**
+     * Enables or disables the logging of steps of the scenario running in the current thread. It replaces the former
+     * public loggerEnabled field.
+     *
+     * @param enabled boolean
+     */
+    public static void setLoggerEnabled(boolean enabled) {
+        loggerEnabled.set(enabled);
+    }
+
     @After
     public void watch_this_tagged_scenario(Scenario scenario) throws Exception {
-        loggerEnabled = true;
+        loggerEnabled.set(true);
         if (quietasdefault.equals("false")) {
             if (!isTagIncludedInScenario(scenario, notImportantTAG)) {
                 boolean isFailed = scenario.isFailed();
@@ -138,7 +167,7 @@ public class HookGSpec extends BaseGSpec {
             }
         }
         if (prevScenarioFailed) {
-            loggerEnabled = false;
+            loggerEnabled.set(false);
         }
     }
 
@@ -149,7 +178,7 @@ public class HookGSpec extends BaseGSpec {
                 commonspec.getLogger().warn("An important scenario has failed! TESTS EXECUTION ABORTED!");
                 throw new SuppressableException("An important scenario has failed! TESTS EXECUTION ABORTED!", true);
             } else {
-                loggerEnabled = true;
+                loggerEnabled.set(true);
             }
         }
     }
@@ -223,9 +252,36 @@ public class HookGSpec extends BaseGSpec {
         capabilities.setVersion(version);
 
         grid = "http://" + (grid != null ? grid : b + ":4444") + "/wd/hub";
-        HttpClient.Factory factory = new ApacheHttpClient.Factory(new HttpClientFactory(60000, 60000));
-        HttpCommandExecutor executor = new HttpCommandExecutor(new HashMap<String, CommandInfo>(), new URL(grid), factory);
-        commonspec.setDriver(new RemoteWebDriver(executor, capabilities));
+        seleniumSessionKey = grid + "#" + b + "#" + headers;
+        RemoteWebDriver driver = RemoteWebDriverUtil.INSTANCE.acquire(seleniumSessionKey);
+        if (driver != null) {
+            commonspec.setDriver(driver);
+        } else {
+            HttpClient.Factory factory = new ApacheHttpClient.Factory(new HttpClientFactory(60000, 60000));
+            HttpCommandExecutor executor = new HttpCommandExecutor(new HashMap<String, CommandInfo>(), new URL(grid), factory);
+            commonspec.setDriver(new RemoteWebDriver(executor, capabilities));
+            setUpProxyHeaders(headers);
+        }
+        commonspec.getDriver().manage().timeouts().pageLoadTimeout(PAGE_LOAD_TIMEOUT, TimeUnit.SECONDS);
+        commonspec.getDriver().manage().timeouts().implicitlyWait(IMPLICITLY_WAIT, TimeUnit.SECONDS);
+        commonspec.getDriver().manage().timeouts().setScriptTimeout(SCRIPT_TIMEOUT, TimeUnit.SECONDS);
+
+        commonspec.getDriver().manage().deleteAllCookies();
+        if (capabilities.getCapability("deviceName") == null) {
+            commonspec.getDriver().manage().window().setSize(new Dimension(1440, 900));
+        }
+        commonspec.getDriver().manage().window().maximize();
+
+
+    }
+
+
+    /**
+     * Configures the ModHeader extension of a new session to send the PROXY_HEADERS.
+     *
+     * @param headers comma separated list of name:value headers
+     */
+    private void setUpProxyHeaders(String headers) {
         if (headers != null && !"".equals(headers)) {
             String[] ar = headers.split(",");
             String headersString = "";
@@ -245,29 +301,22 @@ public class HookGSpec extends BaseGSpec {
                             "  filters: []                                                     " +
                             "}]));                                                             ");
         }
-        commonspec.getDriver().manage().timeouts().pageLoadTimeout(PAGE_LOAD_TIMEOUT, TimeUnit.SECONDS);
-        commonspec.getDriver().manage().timeouts().implicitlyWait(IMPLICITLY_WAIT, TimeUnit.SECONDS);
-        commonspec.getDriver().manage().timeouts().setScriptTimeout(SCRIPT_TIMEOUT, TimeUnit.SECONDS);
-
-        commonspec.getDriver().manage().deleteAllCookies();
-        if (capabilities.getCapability("deviceName") == null) {
-            commonspec.getDriver().manage().window().setSize(new Dimension(1440, 900));
-        }
-        commonspec.getDriver().manage().window().maximize();
-
-
     }
 
-
     /**
      * Close selenium web driver.
      */
     @After(order = ORDER_20, value = {"@mobile or @web"})
     public void seleniumTeardown() {
         if (commonspec.getDriver() != null) {
-            commonspec.getLogger().debug("Shutdown Selenium client");
-            commonspec.getDriver().close();
-            commonspec.getDriver().quit();
+            if (RemoteWebDriverUtil.INSTANCE.isReuseEnabled()) {
+                commonspec.getLogger().debug("Releasing Selenium client");
+                RemoteWebDriverUtil.INSTANCE.release(seleniumSessionKey, commonspec.getDriver());
+            } else {
+                commonspec.getLogger().debug("Shutdown Selenium client");
+                commonspec.getDriver().close();
+                commonspec.getDriver().quit();
+            }
         }
     }
 
@@ -291,8 +340,7 @@ public class HookGSpec extends BaseGSpec {
     public void restClientSetup() throws Exception {
         commonspec.getLogger().debug("Starting a REST client");
 
-        commonspec.setClient(new AsyncHttpClient(new AsyncHttpClientConfig.Builder().setAcceptAnyCertificate(true).setAllowPoolingConnections(false)
-                .build()));
+        commonspec.setClient(AsyncHttpClientUtil.INSTANCE.getClient());
         commonspec.initClients();
     }
 
@@ -303,8 +351,8 @@ public class HookGSpec extends BaseGSpec {
 
     @After(order = ORDER_10, value = "@rest or @dcos or @keos")
     public void restClientTeardown() throws IOException {
-        commonspec.getLogger().debug("Shutting down REST client");
-        commonspec.getClient().close();
+        commonspec.getLogger().debug("Releasing REST client");
+        AsyncHttpClientUtil.INSTANCE.releaseClient(commonspec.getClient());
     }
 
     private boolean isTagIncludedInScenario(Scenario scenario, String customTAG) {
@@ -314,13 +362,31 @@ public class HookGSpec extends BaseGSpec {
 
     @Before(order = ORDER_20, value = "@dcos")
     public void dcosSetup() throws Exception {
-        DcosSpec dcosSpec = new DcosSpec(commonspec);
         MiscSpec miscspec = new MiscSpec(commonspec);
+        DcosBootstrapUtil.Snapshot snapshot = DcosBootstrapUtil.INSTANCE.getSnapshot(this::obtainDcosBootstrapInfo);
+        snapshot.restoreProperties();
+        commonspec.setRestProtocol(snapshot.getRestProtocol());
+        commonspec.setRestHost(snapshot.getRestHost());
+        commonspec.setRestPort(snapshot.getRestPort());
+        commonspec.setCookies(new ArrayList<>(snapshot.getCookies()));
+        miscspec.setGosecVariables();
+    }
+
+    /**
+     * Obtains the cluster information from workspace, bootstrap, marathon and ETCD
+     *
+     * @return thread properties, REST endpoint and cookies set while obtaining it
+     * @throws Exception
+     */
+    private DcosBootstrapUtil.Snapshot obtainDcosBootstrapInfo() throws Exception {
+        DcosSpec dcosSpec = new DcosSpec(commonspec);
+        Properties before = ThreadProperty.getAll();
         dcosSpec.obtainBasicInfoFromWorkspace();
         dcosSpec.obtainBasicInfoFromDescriptor(null);
         dcosSpec.getServicesInfoFromMarathon(null);
         dcosSpec.obtainBasicInfoFromETCD();
-        miscspec.setGosecVariables();
+        Properties changed = DcosBootstrapUtil.Snapshot.changedProperties(before, ThreadProperty.getAll());
+        return new DcosBootstrapUtil.Snapshot(changed, commonspec.getCookies(), commonspec.getRestProtocol(), commonspec.getRestHost(), commonspec.getRestPort());
     }
 
     @Before(order = ORDER_20, value = "@keos")
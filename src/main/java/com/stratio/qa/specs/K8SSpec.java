@@ -19,21 +19,28 @@ package com.stratio.qa.specs;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLMapper;
+import com.stratio.qa.clients.k8s.KubernetesClient;
 import com.stratio.qa.utils.ThreadProperty;
 import cucumber.api.java.en.Given;
 import cucumber.api.java.en.Then;
 import cucumber.api.java.en.When;
 import io.cucumber.datatable.DataTable;
+import io.fabric8.kubernetes.api.model.ContainerStatus;
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.api.model.apps.Deployment;
 import io.fabric8.kubernetes.api.model.apps.StatefulSet;
 import org.testng.Assert;
 
 import java.io.*;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
@@ -45,6 +52,8 @@ import static org.assertj.core.api.Assertions.fail;
  */
 public class K8SSpec extends BaseGSpec {
 
+    private static final int LOG_LINES_IN_ERROR = 25;
+
     /**
      * Generic constructor.
      *
@@ -374,6 +383,100 @@ public class K8SSpec extends BaseGSpec {
         }
     }
 
+    @When("^in less than '(\\d+)' seconds, watching changes, pod with name '(.+?)' in namespace '(.+?)' has '(running|failed|succeeded)' status( and '(ready|not ready)' state)?$")
+    public void waitPodStatus(Integer timeout, String podName, String namespace, String expectedStatus, String expectedState) throws InterruptedException {
+        Boolean readyStatusExpected = expectedState != null ? expectedState.equals("ready") : null;
+        try {
+            commonspec.kubernetesClient.waitForPod(podName, namespace, pod -> hasStatus(pod, expectedStatus, readyStatusExpected), timeout);
+        } catch (IllegalArgumentException e) {
+            fail("Pod " + podName + " has not '" + expectedStatus + "' status" + (expectedState != null ? " and '" + expectedState + "' state" : "") + " after " + timeout + " seconds");
+        }
+    }
+
+    @When("^in less than '(\\d+)' seconds, watching changes, we have '(\\d+)' pod/s with label filter '(.+?)' in namespace '(.+?)' having '(running|failed|succeeded)' status( and '(ready|not ready)' state)?$")
+    public void waitPodStatusWithLabelFilter(Integer timeout, Integer expectedPods, String podSelector, String namespace, String expectedStatus, String expectedState) throws InterruptedException {
+        Boolean readyStatusExpected = expectedState != null ? expectedState.equals("ready") : null;
+        Predicate<Collection<Pod>> condition = pods -> pods.size() == expectedPods && pods.stream().allMatch(pod -> hasStatus(pod, expectedStatus, readyStatusExpected));
+        try {
+            commonspec.kubernetesClient.waitForPodsFilteredByLabel(podSelector, namespace, condition, timeout);
+        } catch (IllegalArgumentException e) {
+            fail("We have not " + expectedPods + " pod/s with label filter " + podSelector + " having '" + expectedStatus + "' status"
+                    + (expectedState != null ? " and '" + expectedState + "' state" : "") + " after " + timeout + " seconds");
+        }
+    }
+
+    @When("^in less than '(\\d+)' seconds, watching changes, deployment with name '(.+?)' in namespace '(.+?)' has '(\\d+)' replicas ready$")
+    public void waitDeploymentStatus(Integer timeout, String deploymentName, String namespace, Integer readyReplicas) throws InterruptedException {
+        Predicate<Deployment> condition = deployment -> deployment != null && deployment.getStatus() != null
+                && (deployment.getStatus().getReadyReplicas() != null ? deployment.getStatus().getReadyReplicas() : 0) == readyReplicas;
+        try {
+            commonspec.kubernetesClient.waitForDeployment(deploymentName, namespace, condition, timeout);
+        } catch (IllegalArgumentException e) {
+            fail("Deployment " + deploymentName + " has not " + readyReplicas + " replicas ready after " + timeout + " seconds");
+        }
+    }
+
+    @When("^in less than '(\\d+)' seconds, watching changes, statefulset with name '(.+?)' in namespace '(.+?)' has '(\\d+)' replicas ready$")
+    public void waitStatefulsetStatus(Integer timeout, String statefulsetName, String namespace, Integer readyReplicas) throws InterruptedException {
+        Predicate<StatefulSet> condition = statefulSet -> statefulSet != null && statefulSet.getStatus() != null
+                && (statefulSet.getStatus().getReadyReplicas() != null ? statefulSet.getStatus().getReadyReplicas() : 0) == readyReplicas;
+        try {
+            commonspec.kubernetesClient.waitForStateFulSet(statefulsetName, namespace, condition, timeout);
+        } catch (IllegalArgumentException e) {
+            fail("Statefulset " + statefulsetName + " has not " + readyReplicas + " replicas ready after " + timeout + " seconds");
+        }
+    }
+
+    @When("^in less than '(\\d+)' seconds, watching changes, custom resource '(.+?)' with name '(.+?)' in namespace '(.+?)' has '(\\d+)' replicas ready$")
+    public void waitCustomResourceStatus(Integer timeout, String name, String nameItem, String namespace, Integer readyReplicas) throws InterruptedException, IOException {
+        Predicate<Map<String, Object>> condition = customResource -> {
+            Integer readyInstances = KubernetesClient.parseReadyInstances(getCustomResourceStatus(customResource).get("readyInstances"));
+            return readyReplicas.equals(readyInstances);
+        };
+        try {
+            commonspec.kubernetesClient.waitForCustomResource(name, nameItem, namespace, condition, timeout);
+        } catch (IllegalArgumentException e) {
+            fail("Custom resource " + nameItem + " has not " + readyReplicas + " replicas ready after " + timeout + " seconds");
+        }
+    }
+
+    @When("^in less than '(\\d+)' seconds, watching changes, custom resource '(.+?)' with name '(.+?)' in namespace '(.+?)' has '(.+?)' global status( and description '(.+?)')?$")
+    public void waitCustomResourceStatus(Integer timeout, String name, String nameItem, String namespace, String status, String description) throws InterruptedException, IOException {
+        Predicate<Map<String, Object>> condition = customResource -> {
+            Object globalStatus = getCustomResourceStatus(customResource).get("globalStatus");
+            if (!(globalStatus instanceof Map)) {
+                return false;
+            }
+            return status.equals(String.valueOf(((Map<?, ?>) globalStatus).get("status")))
+                    && (description == null || description.equals(String.valueOf(((Map<?, ?>) globalStatus).get("description"))));
+        };
+        try {
+            commonspec.kubernetesClient.waitForCustomResource(name, nameItem, namespace, condition, timeout);
+        } catch (IllegalArgumentException e) {
+            fail("Custom resource " + nameItem + " has not " + status + " global status" + (description != null ? " and description " + description : "")
+                    + " after " + timeout + " seconds");
+        }
+    }
+
+    private boolean hasStatus(Pod pod, String expectedStatus, Boolean readyStatusExpected) {
+        if (pod == null || pod.getStatus() == null || pod.getStatus().getPhase() == null || !pod.getStatus().getPhase().toLowerCase().equals(expectedStatus)) {
+            return false;
+        }
+        if (readyStatusExpected == null) {
+            return true;
+        }
+        List<ContainerStatus> containerStatuses = pod.getStatus().getContainerStatuses();
+        return containerStatuses != null && !containerStatuses.isEmpty()
+                && readyStatusExpected.equals(containerStatuses.get(containerStatuses.size() - 1).getReady());
+    }
+
+    private Map<?, ?> getCustomResourceStatus(Map<String, Object> customResource) {
+        if (customResource == null || !(customResource.get("status") instanceof Map)) {
+            return new HashMap<>();
+        }
+        return (Map<?, ?>) customResource.get("status");
+    }
+
     @When("^I create deployment with name '(.+?)', in namespace '(.+?)', with image '(.+?)'( and image pull policy '(.+?)')?$")
     public void createDeployment(String name, String namespace, String image, String imagePullPolicy) {
         commonspec.kubernetesClient.createDeployment(name, namespace, image, imagePullPolicy);
@@ -441,16 +544,27 @@ public class K8SSpec extends BaseGSpec {
     }
 
     @Given("^in less than '(\\d+)' seconds, checking each '(\\d+)' seconds, log of pod '(.+?)' in namespace '(.+?)' contains '(.+?)'$")
-    public void readLogsInLessEachFromPod(Integer timeout, Integer wait, String podName, String namespace, String expectedLog) throws InterruptedException {
-        boolean found = false;
+    public void readLogsInLessEachFromPod(Integer timeout, Integer wait, String podName, String namespace, String expectedLog) throws Exception {
+        AtomicBoolean found = new AtomicBoolean(false);
+        Deque<String> lastLines = new ArrayDeque<>();
+        Predicate<String> lineListener = line -> {
+            if (line.contains(expectedLog)) {
+                found.set(true);
+                return false;
+            }
+            if (lastLines.size() == LOG_LINES_IN_ERROR) {
+                lastLines.removeFirst();
+            }
+            lastLines.addLast(line);
+            return true;
+        };
+        // Every poll only reads the lines written since the last one read
+        String sinceTime = null;
         int i = 0;
-        String log = "";
-        while (!found && i <= timeout) {
+        while (!found.get() && i <= timeout) {
             try {
-                log = commonspec.kubernetesClient.getPodLog(podName, namespace);
-                if (log.contains(expectedLog)) {
-                    found = true;
-                } else {
+                sinceTime = commonspec.kubernetesClient.getPodLog(podName, namespace, sinceTime, lineListener);
+                if (!found.get()) {
                     getCommonSpec().getLogger().info("'" + expectedLog + "' don't found in log after " + i + " seconds");
                     Thread.sleep(wait * 1000);
                 }
@@ -463,7 +577,7 @@ public class K8SSpec extends BaseGSpec {
             }
             i += wait;
         }
-        assertThat(log).contains(expectedLog);
+        assertThat(found.get()).as("'" + expectedLog + "' not found in log of pod " + podName + ". Last lines:\n" + String.join("\n", lastLines)).isTrue();
     }
 
     @When("^I delete (pod|deployment|service) with name '(.+?)' in namespace '(.+?)'$")
@@ -225,6 +225,67 @@ public class KafkaSecSpec extends BaseGSpec {
         commonspec.getKafkaSecUtils().containsNMessagesInTopic(topic, numMessages, partition, values);
     }
 
+    /**
+     * Save current offsets of a topic, so next 'watching from saved offsets' checks only look at new messages
+     *
+     * @param topic         topic whose offsets are saved
+     */
+    @When("I save current offsets of topic {string}")
+    public void saveOffsets(String topic) {
+        commonspec.getKafkaSecUtils().saveOffsets(topic);
+    }
+
+    /**
+     * Save offsets of a topic at a given time, so next 'watching from saved offsets' checks only look at messages
+     * produced since then
+     *
+     * @param topic         topic whose offsets are saved
+     * @param timestamp     epoch milliseconds
+     */
+    @When("I save offsets of topic {string} since timestamp {string}")
+    public void saveOffsets(String topic, String timestamp) {
+        commonspec.getKafkaSecUtils().saveOffsets(topic, Long.parseLong(timestamp));
+    }
+
+    /**
+     * Wait until a topic contains message, reading from saved offsets (or from the beginning if none were saved)
+     *
+     * @param timeout       max seconds to wait
+     * @param topic         topic where to look for message
+     * @param message       message to look for
+     */
+    @Then("in less than {int} seconds, topic {string} contains message {string} watching from saved offsets")
+    public void waitForMessage(Integer timeout, String topic, String message) {
+        commonspec.getKafkaSecUtils().waitForMessage(topic, message, timeout * 1000L);
+    }
+
+    /**
+     * Wait until a topic contains a specific number of messages, reading from saved offsets (or from the beginning
+     * if none were saved)
+     *
+     * @param timeout       max seconds to wait
+     * @param topic         topic where to look for messages
+     * @param numMessages   number of expected messages
+     */
+    @Then("in less than {int} seconds, topic {string} contains {int} messages watching from saved offsets")
+    public void waitForNMessages(Integer timeout, String topic, Integer numMessages) {
+        commonspec.getKafkaSecUtils().waitForNMessages(topic, numMessages, null, timeout * 1000L);
+    }
+
+    /**
+     * Wait until a topic contains specific messages, reading from saved offsets (or from the beginning if none were
+     * saved)
+     *
+     * @param timeout       max seconds to wait
+     * @param topic         topic where to look for messages
+     * @param numMessages   number of expected messages
+     * @param values        values to be checked
+     */
+    @Then("in less than {int} seconds, topic {string} contains {int} messages watching from saved offsets with values:")
+    public void waitForNMessages(Integer timeout, String topic, Integer numMessages, DataTable values) {
+        commonspec.getKafkaSecUtils().waitForNMessages(topic, numMessages, values, timeout * 1000L);
+    }
+
     /**
      * Check that of partitions in a topic matches
      *
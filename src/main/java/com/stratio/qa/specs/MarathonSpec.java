@@ -16,6 +16,7 @@
 
 package com.stratio.qa.specs;
 
+import com.stratio.qa.clients.marathon.MarathonEventStream;
 import com.stratio.qa.models.marathon.*;
 import com.stratio.qa.utils.ThreadProperty;
 
@@ -31,14 +32,28 @@ import org.testng.Assert;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 public class MarathonSpec extends BaseGSpec {
 
     private final Logger logger = LoggerFactory.getLogger(CCTSpec.class);
 
+    /**
+     * Marathon events that can change the tasks or health of an app
+     */
+    private static final List<String> APP_EVENT_TYPES = Arrays.asList("status_update_event", "instance_changed_event",
+            "health_status_changed_event", "instance_health_changed_event", "deployment_success", "deployment_failed",
+            "deployment_step_success", "deployment_step_failure");
+
+    private static final long EVENT_STREAM_CONNECT_MILLIS = 10000;
+
     public MarathonSpec(CommonG spec) {
         this.commonspec = spec;
     }
@@ -93,138 +108,38 @@ public class MarathonSpec extends BaseGSpec {
 
     @Then("^in less than '(\\d+)' seconds, checking each '(\\d+)' seconds, service with id '(.*)' has '(\\d+)' task[s]? in '(running|finished|failed|staging|starting|killed)' state in Marathon$")
     public void checkNumberOfTasksStateWithPolling(int timeout, int pause, String appId, int numberOfTasks, String state) throws Exception {
-        VersionedAppResponse app;
-        Collection<Task> tasks;
-        int count;
         String translatedState = MarathonConstants.statesDict.get(state);
+        Predicate<App> condition = app -> app.getTasks().stream().filter(task -> task.getState().equals(translatedState)).count() == numberOfTasks;
 
-        int time = 0;
-        while (time < timeout) {
-            app = this.commonspec.marathonClient.getApp(appId);
-            if (app.getApp() != null) {
-                tasks = app.getApp().getTasks();
-
-                count = (int) tasks.stream().filter(task -> task.getState().equals(translatedState)).count();
-                if (count == numberOfTasks) {
-                    return;
-                }
-            }
-
-            Thread.sleep(pause * 1000);
-            time += pause;
-        }
-
-        assertThat(false)
+        assertThat(waitForApp(appId, timeout, pause, condition))
                 .as("Number of task in state " + translatedState + " for service " + appId + " does not match after " + timeout + " seconds.")
                 .isTrue();
     }
 
     @Then("^in less than '(\\d+)' seconds, checking each '(\\d+)' seconds, service with id '(.*)' has all tasks in '(running|finished|failed|staging|starting|killed)' state in Marathon$")
     public void checkAllTasksStateWithPolling(int timeout, int pause, String appId, String state) throws Exception {
-        VersionedAppResponse app;
-        Collection<Task> tasks;
-
         String translatedState = MarathonConstants.statesDict.get(state);
-        int count;
+        Predicate<App> condition = app -> app.getTasks().stream().filter(task -> task.getState().equals(translatedState)).count() == app.getTasks().size();
 
-        int time = 0;
-        while (time < timeout) {
-            app = this.commonspec.marathonClient.getApp(appId);
-            if (app.getApp() != null) {
-                tasks = app.getApp().getTasks();
-
-                count = (int) tasks.stream().filter(task -> task.getState().equals(translatedState)).count();
-                if (count == tasks.size()) {
-                    return;
-                }
-            }
-
-            Thread.sleep(pause * 1000);
-            time += pause;
-        }
-
-        assertThat(false)
+        assertThat(waitForApp(appId, timeout, pause, condition))
                 .as("Number of task in state " + translatedState + " for service " + appId + " does not match after " + timeout + " seconds.")
                 .isTrue();
     }
 
     @Then("^in less than '(\\d+)' seconds, checking each '(\\d+)' seconds, service with id '(.*)' has '(\\d+)' '(healthy|unhealthy|staged|running)' task[s]? in Marathon$")
     public void checkNumberOfTasksHealthinessWithPolling(int timeout, int pause, String appId, int numberOfTasks, String state) throws Exception {
-        VersionedAppResponse app;
-        int count = 0;
-
-        int time = 0;
-        while (time < timeout) {
-            app = this.commonspec.marathonClient.getApp(appId);
-
-            if (app.getApp() != null) {
-                switch (state) {
-                    case "healthy":
-                        count = app.getApp().getTasksHealthy();
-                        break;
-                    case "unhealthy":
-                        count = app.getApp().getTasksUnhealthy();
-                        break;
-                    case "staged":
-                        count = app.getApp().getTasksStaged();
-                        break;
-                    case "running":
-                        count = app.getApp().getTasksRunning();
-                        break;
-                    default:
-                        count = 0;
-                }
-
-                if (count == numberOfTasks) {
-                    return;
-                }
-            }
-
-            Thread.sleep(pause * 1000);
-            time += pause;
-        }
+        Predicate<App> condition = app -> countTasks(app, state) == numberOfTasks;
 
-        assertThat(false)
+        assertThat(waitForApp(appId, timeout, pause, condition))
                 .as("Number of task(s) " + state + " for service " + appId + " does not match after " + timeout + " seconds.")
                 .isTrue();
     }
 
     @Then("^in less than '(\\d+)' seconds, checking each '(\\d+)' seconds, service with id '(.*)' has all tasks '(healthy|unhealthy|unknown)' in Marathon$")
     public void checkAllTasksHealthinessWithPolling(int timeout, int pause, String appId, String state) throws Exception {
-        VersionedAppResponse app;
-        int count = 0;
-
-        int time = 0;
-        while (time < timeout) {
-            app = this.commonspec.marathonClient.getApp(appId);
-            if (app.getApp() != null) {
-                switch (state) {
-                    case "healthy":
-                        count = app.getApp().getTasksHealthy();
-                        break;
-                    case "unhealthy":
-                        count = app.getApp().getTasksUnhealthy();
-                        break;
-                    case "staged":
-                        count = app.getApp().getTasksStaged();
-                        break;
-                    case "running":
-                        count = app.getApp().getTasksRunning();
-                        break;
-                    default:
-                        count = 0;
-                }
-
-                if (count == app.getApp().getTasks().size()) {
-                    return;
-                }
-            }
-
-            Thread.sleep(pause * 1000);
-            time += pause;
-        }
+        Predicate<App> condition = app -> countTasks(app, state) == app.getTasks().size();
 
-        assertThat(false)
+        assertThat(waitForApp(appId, timeout, pause, condition))
                 .as("Number of task(s) " + state + " for service " + appId + " does not match after " + timeout + " seconds.")
                 .isTrue();
     }
@@ -400,6 +315,86 @@ public class MarathonSpec extends BaseGSpec {
         assertThat(result.getHttpStatus()).as("Error restarting app in Marathon: " + result.getHttpStatus()).isEqualTo(200);
     }
 
+    /**
+     * Number of tasks of the app in a health state
+     *
+     * @param app   marathon app
+     * @param state healthy, unhealthy, staged or running
+     * @return number of tasks
+     */
+    private int countTasks(App app, String state) {
+        switch (state) {
+            case "healthy":
+                return app.getTasksHealthy();
+            case "unhealthy":
+                return app.getTasksUnhealthy();
+            case "staged":
+                return app.getTasksStaged();
+            case "running":
+                return app.getTasksRunning();
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Waits for the app to meet the condition.
+     * <p>
+     * The app is checked every pause seconds and, while the Marathon event stream is available, also as soon as
+     * Marathon sends an event about it. Events can be disabled with MARATHON_EVENTS system property set to false.
+     *
+     * @param appId     marathon app id
+     * @param timeout   seconds to wait
+     * @param pause     max seconds between checks
+     * @param condition condition to meet
+     * @return true if the condition was met before the timeout
+     * @throws Exception
+     */
+    private boolean waitForApp(String appId, int timeout, int pause, Predicate<App> condition) throws Exception {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(timeout);
+        long pauseMillis = TimeUnit.SECONDS.toMillis(pause);
+        boolean useEvents = Boolean.parseBoolean(System.getProperty("MARATHON_EVENTS", "true"));
+        Semaphore changes = new Semaphore(0);
+        Consumer<MarathonEventStream.Event> listener = event -> {
+            if (event.refersTo(appId)) {
+                changes.release();
+            }
+        };
+        MarathonEventStream stream = null;
+        long nextSubscription = 0;
+        try {
+            while (true) {
+                if (useEvents && (stream == null || stream.isClosed()) && System.currentTimeMillis() >= nextSubscription) {
+                    // Subscribed before checking the app, so no change is missed
+                    stream = this.commonspec.marathonClient.subscribeToEvents(APP_EVENT_TYPES, listener, changes::release);
+                    nextSubscription = System.currentTimeMillis() + pauseMillis;
+                    if (!stream.awaitConnected(EVENT_STREAM_CONNECT_MILLIS)) {
+                        logger.debug("Marathon event stream not available, checking each {} seconds", pause);
+                        stream.close();
+                        useEvents = false;
+                    }
+                }
+                changes.drainPermits();
+
+                VersionedAppResponse app = this.commonspec.marathonClient.getApp(appId);
+                if (app.getApp() != null && condition.test(app.getApp())) {
+                    return true;
+                }
+
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                // events only make the next check happen sooner, a lost event delays it at most one pause
+                changes.tryAcquire(Math.min(pauseMillis, remaining), TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            if (stream != null) {
+                stream.close();
+            }
+        }
+    }
+
     private String getHostIPFromMarathon(boolean internalIp, String serviceId, int position) throws Exception {
         VersionedAppResponse app = this.commonspec.marathonClient.getApp(serviceId);
         Collection<Task> tasks = app.getApp().getTasks();
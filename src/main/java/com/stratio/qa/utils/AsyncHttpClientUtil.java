@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import com.ning.http.client.AsyncHttpClient;
+import com.ning.http.client.AsyncHttpClientConfig;
+
+/**
+ * Process-wide REST client (Singleton).
+ * <p>
+ * Connections (and TLS sessions) are pooled and kept alive, so scenarios against the same hosts do not pay a new
+ * handshake for every request. Pooling can be tuned with these system properties:
+ * <ul>
+ *     <li>REST_CLIENT_POOLING: false to create a non pooled client for every scenario (default true)</li>
+ *     <li>REST_CLIENT_MAX_CONNECTIONS_PER_HOST: max pooled connections per host (default 20)</li>
+ *     <li>REST_CLIENT_IDLE_TIMEOUT: ms an idle pooled connection is kept open (default 60000)</li>
+ *     <li>REST_CLIENT_SSL_SESSION_CACHE_SIZE: TLS sessions cached for resumption (default 100)</li>
+ * </ul>
+ */
+public enum AsyncHttpClientUtil {
+    INSTANCE;
+
+    private AsyncHttpClient sharedClient;
+
+    /**
+     * Returns the client to be used by a scenario.
+     *
+     * @return shared pooled client, or a new non pooled one if pooling is disabled
+     */
+    public synchronized AsyncHttpClient getClient() {
+        if (!Boolean.parseBoolean(System.getProperty("REST_CLIENT_POOLING", "true"))) {
+            return new AsyncHttpClient(new AsyncHttpClientConfig.Builder().setAcceptAnyCertificate(true).setAllowPoolingConnections(false)
+                    .build());
+        }
+        if (sharedClient == null || sharedClient.isClosed()) {
+            sharedClient = new AsyncHttpClient(new AsyncHttpClientConfig.Builder().setAcceptAnyCertificate(true)
+                    .setAllowPoolingConnections(true)
+                    .setAllowPoolingSslConnections(true)
+                    .setMaxConnectionsPerHost(Integer.parseInt(System.getProperty("REST_CLIENT_MAX_CONNECTIONS_PER_HOST", "20")))
+                    .setPooledConnectionIdleTimeout(Integer.parseInt(System.getProperty("REST_CLIENT_IDLE_TIMEOUT", "60000")))
+                    .setSslSessionCacheSize(Integer.parseInt(System.getProperty("REST_CLIENT_SSL_SESSION_CACHE_SIZE", "100")))
+                    .build());
+        }
+        return sharedClient;
+    }
+
+    /**
+     * Releases a client obtained with {@link #getClient()}. The shared client is kept open for next scenarios.
+     *
+     * @param client client to release
+     */
+    public synchronized void releaseClient(AsyncHttpClient client) {
+        if (client != null && client != sharedClient) {
+            client.close();
+        }
+    }
+
+    /**
+     * Closes the shared client, if any.
+     */
+    public synchronized void close() {
+        if (sharedClient != null) {
+            sharedClient.close();
+            sharedClient = null;
+        }
+    }
+}
@@ -43,6 +43,10 @@ public abstract class BaseGTest {
      */
     @BeforeSuite(alwaysRun = true)
     public void beforeGSuite(ITestContext context) {
+        int scenarioThreads = CucumberRunner.getScenarioThreads();
+        if (scenarioThreads > 1) {
+            context.getSuite().getXmlSuite().setDataProviderThreadCount(scenarioThreads);
+        }
     }
 
     /**
@@ -52,6 +56,9 @@ public abstract class BaseGTest {
      */
     @AfterSuite(alwaysRun = true)
     public void afterGSuite(ITestContext context) {
+        AsyncHttpClientUtil.INSTANCE.close();
+        RemoteWebDriverUtil.INSTANCE.close();
+        RemoteSSHConnectionPool.INSTANCE.close();
         logger.info("Done executing this test-run.");
     }
 
@@ -79,6 +86,16 @@ public abstract class BaseGTest {
         return cucumberRunner.provideScenarios();
     }
 
+    /**
+     * Same scenarios as {@link #scenarios()}, provided in parallel by TestNG using SCENARIO_THREADS threads.
+     *
+     * @return a two dimensional array of scenarios features.
+     */
+    @DataProvider(parallel = true)
+    public Object[][] parallelScenarios() {
+        return scenarios();
+    }
+
     /**
      * Method executed before a test method.
      *
@@ -86,6 +103,8 @@ public abstract class BaseGTest {
      */
     @BeforeMethod(alwaysRun = true)
     public void beforeGMethod(Method method) {
+        // Test methods may run in a different thread than the class setup (parallelScenarios)
+        ThreadProperty.set("class", this.getClass().getCanonicalName());
         ThreadProperty.set("browser", this.browser);
     }
 
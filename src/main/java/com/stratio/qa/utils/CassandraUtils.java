@@ -17,6 +17,9 @@
 package com.stratio.qa.utils;
 
 import com.datastax.driver.core.*;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.stratio.qa.exceptions.DBException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,6 +29,9 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
 
 
 
@@ -47,6 +53,8 @@ public class CassandraUtils {
 
     private CassandraQueryUtils cassandraqueryUtils;
 
+    private final Map<String, PreparedStatement> preparedStatements = new ConcurrentHashMap<>();
+
     /**
      * Generic contructor of CassandraUtils.
      */
@@ -54,6 +62,19 @@ public class CassandraUtils {
         this.host = System.getProperty("CASSANDRA_HOST", "node-0-server.cassandrastratio.mesos");
     }
 
+    /**
+     * Use an already connected cluster and session.
+     *
+     * @param cluster cluster
+     * @param session session of the cluster
+     */
+    CassandraUtils(Cluster cluster, Session session) {
+        this();
+        this.cluster = cluster;
+        this.session = session;
+        this.cassandraqueryUtils = new CassandraQueryUtils();
+    }
+
     /**
      * Set Cassandra host
      */
@@ -72,6 +93,7 @@ public class CassandraUtils {
         LOGGER.debug("Connected to cluster (" + host + "): "
                 + metadata.getClusterName() + "\n");
         this.session = this.cluster.connect();
+        this.preparedStatements.clear();
     }
 
     /**
@@ -90,10 +112,83 @@ public class CassandraUtils {
      * @param queriesList
      */
     public void executeQueriesList(List<String> queriesList) {
-
+        List<Statement> statements = new ArrayList<>(queriesList.size());
         for (String query : queriesList) {
-            this.session.execute(query);
+            statements.add(new SimpleStatement(query));
         }
+        executeAll(statements);
+    }
+
+    /**
+     * Prepare a statement, reusing the one already prepared in this session for the same CQL.
+     *
+     * @param query CQL
+     * @return PreparedStatement
+     */
+    public PreparedStatement prepare(String query) {
+        return this.preparedStatements.computeIfAbsent(query, cql -> this.session.prepare(cql));
+    }
+
+    /**
+     * Execute statements over Cassandra.
+     * <p>
+     * Writes (INSERT, UPDATE, DELETE and batches) are sent asynchronously, keeping up to CASSANDRA_MAX_IN_FLIGHT
+     * (128 by default) of them in flight. Any other statement (DDL, USE...) waits for pending writes and is executed
+     * synchronously, so scripts keep their order wherever it matters.
+     *
+     * @param statements
+     */
+    public void executeAll(List<Statement> statements) {
+        int maxInFlight = Integer.parseInt(System.getProperty("CASSANDRA_MAX_IN_FLIGHT", "128"));
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        FutureCallback<ResultSet> callback = new FutureCallback<ResultSet>() {
+            @Override
+            public void onSuccess(ResultSet result) {
+                inFlight.release();
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                failure.compareAndSet(null, t);
+                inFlight.release();
+            }
+        };
+
+        for (Statement statement : statements) {
+            if (failure.get() != null) {
+                break;
+            }
+            if (isWrite(statement)) {
+                inFlight.acquireUninterruptibly();
+                Futures.addCallback(this.session.executeAsync(statement), callback, MoreExecutors.directExecutor());
+            } else {
+                inFlight.acquireUninterruptibly(maxInFlight);
+                inFlight.release(maxInFlight);
+                if (failure.get() == null) {
+                    this.session.execute(statement);
+                }
+            }
+        }
+        inFlight.acquireUninterruptibly(maxInFlight);
+
+        Throwable t = failure.get();
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        } else if (t != null) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    private static boolean isWrite(Statement statement) {
+        if (statement instanceof BoundStatement || statement instanceof BatchStatement) {
+            return true;
+        }
+        if (statement instanceof SimpleStatement) {
+            String query = ((SimpleStatement) statement).getQueryString().trim().toUpperCase();
+            return query.startsWith("INSERT") || query.startsWith("UPDATE") || query.startsWith("DELETE") || query.startsWith("BEGIN");
+        }
+        return false;
     }
 
     /**
@@ -104,6 +199,7 @@ public class CassandraUtils {
         LOGGER.debug("Connected to cluster (" + host + "): "
                 + metadata.getClusterName() + "\n");
         this.session = this.cluster.connect();
+        this.preparedStatements.clear();
     }
 
     /**
@@ -120,6 +216,7 @@ public class CassandraUtils {
         }
         this.session.close();
         this.cluster.close();
+        this.preparedStatements.clear();
     }
 
     /**
@@ -200,9 +297,57 @@ public class CassandraUtils {
      * @param fields
      */
     public void insertData(String table, Map<String, Object> fields) {
+        this.session.execute(insertStatement(table, fields));
+    }
+
+    /**
+     * Insert several rows in a keyspace, sending them asynchronously.
+     *
+     * @param table
+     * @param rows
+     */
+    public void insertData(String table, List<Map<String, Object>> rows) {
+        List<Statement> statements = new ArrayList<>(rows.size());
+        for (Map<String, Object> fields : rows) {
+            statements.add(insertStatement(table, fields));
+        }
+        executeAll(statements);
+    }
+
+    /**
+     * Build an INSERT statement. Values are CQL literals: if the table is known, they are parsed with the codecs of
+     * their columns and bound to a prepared statement; otherwise the plain query is used.
+     * <p>
+     * Prepared statements always name the keyspace of the table, as they are reused after the logged keyspace changes.
+     */
+    private Statement insertStatement(String table, Map<String, Object> fields) {
+        String[] names = table.split("\\.", 2);
+        String keyspace = names.length == 2 ? names[0] : this.session.getLoggedKeyspace();
+        KeyspaceMetadata keyspaceMetadata = keyspace != null ? this.cluster.getMetadata().getKeyspace(keyspace) : null;
+        TableMetadata tableMetadata = keyspaceMetadata != null ? keyspaceMetadata.getTable(names[names.length - 1]) : null;
+        if (tableMetadata != null) {
+            try {
+                List<String> columns = new ArrayList<>(fields.keySet());
+                String qualifiedTable = Metadata.quoteIfNecessary(keyspaceMetadata.getName()) + "." + Metadata.quoteIfNecessary(tableMetadata.getName());
+                StringBuilder query = new StringBuilder("INSERT INTO ").append(qualifiedTable).append(" (")
+                        .append(String.join(", ", columns)).append(") VALUES (");
+                for (int i = 0; i < columns.size(); i++) {
+                    query.append(i == 0 ? "?" : ", ?");
+                }
+                BoundStatement bound = prepare(query.append(");").toString()).bind();
+                CodecRegistry codecs = this.cluster.getConfiguration().getCodecRegistry();
+                for (int i = 0; i < columns.size(); i++) {
+                    TypeCodec<Object> codec = codecs.codecFor(tableMetadata.getColumn(columns.get(i)).getType());
+                    bound.set(i, codec.parse(String.valueOf(fields.get(columns.get(i)))), codec);
+                }
+                return bound;
+            } catch (RuntimeException e) {
+                LOGGER.debug("Cannot bind values for {}, using plain query: {}", table, e.getMessage());
+            }
+        }
         String query = this.cassandraqueryUtils.insertData(table, fields);
         LOGGER.debug(query);
-        executeQuery(query);
+        return new SimpleStatement(query);
     }
 
     /**
@@ -344,10 +489,7 @@ public class CassandraUtils {
         }
         List<String> scriptLines = loadScript(path);
         LOGGER.info("Executing {} lines ", scriptLines.size());
-        for (String cql : scriptLines) {
-            ResultSet result = session.execute(cql);
-            LOGGER.debug("Executing: {}", cql);
-        }
+        executeQueriesList(scriptLines);
         LOGGER.info("Using existing keyspace {}", keyspace);
     }
 
@@ -32,13 +32,12 @@ public class CukesGHooks extends BaseGSpec implements ConcurrentEventListener {
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass().getCanonicalName());
 
-    private String currentFeatureFile = null;
-
-    private boolean isLastStepBackground = false;
-
-    private int exampleNumber = 1;
-
-    private String previousTestCaseName = "";
+    // Events are received in the thread running the scenario, so state is kept per worker
+    private final ThreadLocal<ScenarioState> state = new ThreadLocal<ScenarioState>() {
+        protected ScenarioState initialValue() {
+            return new ScenarioState();
+        }
+    };
 
     public CukesGHooks() {
     }
@@ -92,31 +91,33 @@ public class CukesGHooks extends BaseGSpec implements ConcurrentEventListener {
     }
 
     private void handleTestCaseStarted(TestCaseStarted event) {
-        if (currentFeatureFile == null || !currentFeatureFile.equals(event.testCase.getUri())) {
-            currentFeatureFile = event.testCase.getUri();
+        ScenarioState current = state.get();
+        if (current.currentFeatureFile == null || !current.currentFeatureFile.equals(event.testCase.getUri())) {
+            current.currentFeatureFile = event.testCase.getUri();
         }
         TestCase tc = event.testCase;
-        logger.info("Feature/Scenario: {}/{} ", TestSourcesModelUtil.INSTANCE.getTestSourcesModel().getFeatureName(currentFeatureFile), tc.getName());
-        ThreadProperty.set("feature", TestSourcesModelUtil.INSTANCE.getTestSourcesModel().getFeatureName(currentFeatureFile));
+        logger.info("Feature/Scenario: {}/{} ", TestSourcesModelUtil.INSTANCE.getTestSourcesModel().getFeatureName(current.currentFeatureFile), tc.getName());
+        ThreadProperty.set("feature", TestSourcesModelUtil.INSTANCE.getTestSourcesModel().getFeatureName(current.currentFeatureFile));
         ThreadProperty.set("scenario", calculateElementName(tc));
     }
 
     private void handleTestStepStarted(TestStepStarted event) {
-        if (HookGSpec.loggerEnabled) {
+        if (HookGSpec.isLoggerEnabled()) {
             if (event.testStep instanceof PickleStepTestStep) {
+                ScenarioState current = state.get();
                 PickleStepTestStep testStep = (PickleStepTestStep) event.testStep;
-                TestSourcesModel.AstNode astNode = TestSourcesModelUtil.INSTANCE.getTestSourcesModel().getAstNode(currentFeatureFile, testStep.getStepLine());
+                TestSourcesModel.AstNode astNode = TestSourcesModelUtil.INSTANCE.getTestSourcesModel().getAstNode(current.currentFeatureFile, testStep.getStepLine());
                 if (astNode != null) {
                     if (TestSourcesModel.isBackgroundStep(astNode)) {
-                        if (!isLastStepBackground) {
+                        if (!current.isLastStepBackground) {
                             logger.info(" Background:");
                         }
-                        isLastStepBackground = true;
+                        current.isLastStepBackground = true;
                     } else {
-                        if (isLastStepBackground) {
+                        if (current.isLastStepBackground) {
                             logger.info(" Steps:");
                         }
-                        isLastStepBackground = false;
+                        current.isLastStepBackground = false;
                     }
                 }
             }
@@ -145,22 +146,34 @@ public class CukesGHooks extends BaseGSpec implements ConcurrentEventListener {
     }
 
     private void handleTestCaseFinished(TestCaseFinished event) {
-        if (HookGSpec.loggerEnabled) {
+        if (HookGSpec.isLoggerEnabled()) {
             logger.info(""); //empty line to split scenarios
         }
     }
 
     public String calculateElementName(cucumber.api.TestCase testCase) {
+        ScenarioState current = state.get();
         String testCaseName = testCase.getName();
-        if (testCaseName.equals(previousTestCaseName)) {
-            exampleNumber++;
-            ThreadProperty.set("dataSet", String.valueOf(exampleNumber));
-            return Utils.getUniqueTestNameForScenarioExample(testCaseName, exampleNumber);
+        if (testCaseName.equals(current.previousTestCaseName)) {
+            current.exampleNumber++;
+            ThreadProperty.set("dataSet", String.valueOf(current.exampleNumber));
+            return Utils.getUniqueTestNameForScenarioExample(testCaseName, current.exampleNumber);
         } else {
             ThreadProperty.set("dataSet", "");
-            previousTestCaseName = testCase.getName();
-            exampleNumber = 1;
+            current.previousTestCaseName = testCase.getName();
+            current.exampleNumber = 1;
             return testCaseName;
         }
     }
+
+    private static final class ScenarioState {
+
+        private String currentFeatureFile = null;
+
+        private boolean isLastStepBackground = false;
+
+        private int exampleNumber = 1;
+
+        private String previousTestCaseName = "";
+    }
 }
\ No newline at end of file
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import com.ning.http.client.cookie.Cookie;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+
+/**
+ * Cluster information obtained by @dcos scenarios, shared by all the scenarios of the execution (Singleton).
+ * <p>
+ * Obtaining it means connecting to the bootstrap, logging in to the SSO and querying Marathon and ETCD, so it is
+ * done once and reused until it is invalidated: manually, when a 401 is received from its REST host or when its SSO
+ * cookies are older than the SSO token cache TTL. It can be tuned with these system properties:
+ * <ul>
+ *     <li>DCOS_BOOTSTRAP_CACHE: false to obtain the information in every @dcos scenario (default true)</li>
+ *     <li>SSO_TOKEN_CACHE_TTL: seconds the information is reused (default 600)</li>
+ * </ul>
+ */
+public enum DcosBootstrapUtil {
+    INSTANCE;
+
+    private final Logger logger = LoggerFactory.getLogger(DcosBootstrapUtil.class);
+
+    private Snapshot snapshot;
+
+    private Snapshot invalidated;
+
+    private long expiresAt;
+
+    public boolean isCacheEnabled() {
+        return Boolean.parseBoolean(System.getProperty("DCOS_BOOTSTRAP_CACHE", "true"));
+    }
+
+    /**
+     * Returns the cached snapshot, loading it if there is none. Threads asking for it while it is being loaded wait
+     * for the load to finish. If the load fails nothing is cached, so next call loads it again.
+     * <p>
+     * When reloading an invalidated snapshot, its properties are removed from the current thread first, so the
+     * loader does not skip values that were already obtained.
+     *
+     * @param loader obtains the information in the current thread
+     * @return cluster information
+     * @throws Exception if the loader fails
+     */
+    public Snapshot getSnapshot(Callable<Snapshot> loader) throws Exception {
+        if (!isCacheEnabled()) {
+            return loader.call();
+        }
+        synchronized (this) {
+            if (snapshot != null && System.currentTimeMillis() >= expiresAt) {
+                logger.debug("Cluster bootstrap information expired");
+                invalidate();
+            }
+            if (snapshot == null) {
+                if (invalidated != null) {
+                    for (String key : invalidated.getProperties().stringPropertyNames()) {
+                        ThreadProperty.remove(key);
+                    }
+                }
+                logger.debug("Obtaining cluster bootstrap information");
+                snapshot = loader.call();
+                invalidated = null;
+                expiresAt = System.currentTimeMillis() + Long.parseLong(System.getProperty("SSO_TOKEN_CACHE_TTL", "600")) * 1000L;
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Discards the cached snapshot, next @dcos scenario obtains the information again.
+     */
+    public synchronized void invalidate() {
+        if (snapshot != null) {
+            invalidated = snapshot;
+            snapshot = null;
+        }
+    }
+
+    /**
+     * Discards the cached snapshot if it was obtained for a REST host (i.e. after a 401 from it, as its SSO cookies
+     * are no longer valid).
+     *
+     * @param restHost REST host
+     */
+    public synchronized void invalidate(String restHost) {
+        if (snapshot != null && restHost.equals(snapshot.getRestHost())) {
+            logger.debug("Discarding cluster bootstrap information of {}", restHost);
+            invalidate();
+        }
+    }
+
+    /**
+     * Thread properties, REST endpoint and SSO cookies set when obtaining the cluster information
+     */
+    public static class Snapshot {
+
+        private final Properties properties;
+
+        private final List<Cookie> cookies;
+
+        private final String restProtocol;
+
+        private final String restHost;
+
+        private final String restPort;
+
+        public Snapshot(Properties properties, List<Cookie> cookies, String restProtocol, String restHost, String restPort) {
+            this.properties = new Properties();
+            this.properties.putAll(properties);
+            this.cookies = cookies == null ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(cookies));
+            this.restProtocol = restProtocol;
+            this.restHost = restHost;
+            this.restPort = restPort;
+        }
+
+        /**
+         * Properties that changed in the thread between the two given states.
+         *
+         * @param before thread properties before obtaining the information
+         * @param after  thread properties after obtaining the information
+         * @return new or modified properties
+         */
+        public static Properties changedProperties(Properties before, Properties after) {
+            Properties changed = new Properties();
+            for (String key : after.stringPropertyNames()) {
+                String value = after.getProperty(key);
+                if (!value.equals(before.getProperty(key))) {
+                    changed.setProperty(key, value);
+                }
+            }
+            return changed;
+        }
+
+        /**
+         * Sets the properties of the snapshot in the current thread.
+         */
+        public void restoreProperties() {
+            for (String key : properties.stringPropertyNames()) {
+                ThreadProperty.set(key, properties.getProperty(key));
+            }
+        }
+
+        public Properties getProperties() {
+            return properties;
+        }
+
+        public List<Cookie> getCookies() {
+            return cookies;
+        }
+
+        public String getRestProtocol() {
+            return restProtocol;
+        }
+
+        public String getRestHost() {
+            return restHost;
+        }
+
+        public String getRestPort() {
+            return restPort;
+        }
+    }
+}
@@ -18,16 +18,21 @@ package com.stratio.qa.utils;
 
 import org.apache.http.HttpHost;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.admin.indices.create.CreateIndexRequest;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
 import org.elasticsearch.action.admin.indices.settings.get.GetSettingsRequest;
 import org.elasticsearch.action.admin.indices.settings.get.GetSettingsResponse;
+import org.elasticsearch.action.bulk.BulkProcessor;
 import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.delete.DeleteRequest;
 import org.elasticsearch.action.get.GetRequest;
 import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.search.ClearScrollRequest;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
 import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.client.RestClient;
 import org.elasticsearch.client.RestHighLevelClient;
@@ -37,6 +42,8 @@ import org.elasticsearch.client.indices.GetMappingsResponse;
 import org.elasticsearch.client.indices.PutMappingRequest;
 import org.elasticsearch.cluster.metadata.MappingMetaData;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentType;
@@ -53,6 +60,7 @@ import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLException;
 import javax.net.ssl.TrustManagerFactory;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
@@ -61,15 +69,21 @@ import java.nio.file.Paths;
 import java.security.*;
 import java.security.cert.CertificateException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 
 public class ElasticSearchUtils extends RestClient.FailureListener {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ElasticSearchUtil.class);
 
+    private static final TimeValue SCROLL_KEEP_ALIVE = TimeValue.timeValueMinutes(1);
+
     private String es_host;
 
     private int es_native_port;
@@ -278,6 +292,27 @@ public class ElasticSearchUtils extends RestClient.FailureListener {
      */
     public List<JSONObject> searchSimpleFilterElasticsearchQuery(String indexName, String columnName, Object value, String filterType) throws Exception {
         List<JSONObject> resultsJSON = new ArrayList<JSONObject>();
+        try (ScrollIterator hits = scrollSimpleFilterElasticsearchQuery(indexName, columnName, value, filterType)) {
+            while (hits.hasNext()) {
+                resultsJSON.add(hits.next());
+            }
+        }
+        return resultsJSON;
+    }
+
+    /**
+     * Same as {@link #searchSimpleFilterElasticsearchQuery}, but documents are fetched lazily, one scroll page
+     * (ES_SCROLL_SIZE documents, 1000 by default) at a time, so result sets are not truncated to the first page.
+     * The iterator must be closed if it is not fully consumed.
+     *
+     * @param indexName
+     * @param columnName
+     * @param value
+     * @param filterType  [equals, gt, gte, lt, lte]
+     * @return iterator over the matching documents
+     * @throws Exception
+     */
+    public ScrollIterator scrollSimpleFilterElasticsearchQuery(String indexName, String columnName, Object value, String filterType) throws Exception {
         QueryBuilder query;
         switch (filterType) {
             case "equals":
@@ -299,17 +334,126 @@ public class ElasticSearchUtils extends RestClient.FailureListener {
                 throw new Exception("Filter not implemented in the library");
         }
 
-        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder().query(query).timeout(new TimeValue(60, TimeUnit.SECONDS));
-        SearchRequest searchRequest = new SearchRequest().indices(indexName).source(searchSourceBuilder);
-        SearchResponse searchResponse = client.search(searchRequest, RequestOptions.DEFAULT);
-        SearchHit[] hits = searchResponse.getHits().getHits();
-        for (SearchHit hit : hits) {
+        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder().query(query).timeout(new TimeValue(60, TimeUnit.SECONDS))
+                .size(Integer.parseInt(System.getProperty("ES_SCROLL_SIZE", "1000")));
+        SearchRequest searchRequest = new SearchRequest().indices(indexName).source(searchSourceBuilder).scroll(SCROLL_KEEP_ALIVE);
+        return new ScrollIterator(client.search(searchRequest, RequestOptions.DEFAULT));
+    }
+
+    /**
+     * Lazy iterator over the documents returned by a scrolled search.
+     */
+    public class ScrollIterator implements Iterator<JSONObject>, Closeable {
 
+        private String scrollId;
 
+        private SearchHit[] page;
 
-            resultsJSON.add(new JSONObject(hit.getSourceAsString()));
+        private int position;
+
+        ScrollIterator(SearchResponse response) {
+            this.scrollId = response.getScrollId();
+            this.page = response.getHits().getHits();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (position < page.length) {
+                return true;
+            }
+            if (scrollId == null || page.length == 0) {
+                close();
+                return false;
+            }
+            try {
+                SearchResponse response = client.scroll(new SearchScrollRequest(scrollId).scroll(SCROLL_KEEP_ALIVE), RequestOptions.DEFAULT);
+                scrollId = response.getScrollId();
+                page = response.getHits().getHits();
+                position = 0;
+            } catch (IOException e) {
+                throw new ElasticsearchException("Error scrolling search results", e);
+            }
+            return hasNext();
+        }
+
+        @Override
+        public JSONObject next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return new JSONObject(page[position++].getSourceAsString());
+        }
+
+        @Override
+        public void close() {
+            if (scrollId == null) {
+                return;
+            }
+            ClearScrollRequest request = new ClearScrollRequest();
+            request.addScrollId(scrollId);
+            scrollId = null;
+            page = new SearchHit[0];
+            try {
+                client.clearScroll(request, RequestOptions.DEFAULT);
+            } catch (IOException e) {
+                LOGGER.warn("Error clearing scroll: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Indexes several documents with bulk requests.
+     * <p>
+     * Requests are flushed every ES_BULK_ACTIONS documents (1000 by default) or ES_BULK_SIZE_MB megabytes (5 by
+     * default), and up to ES_BULK_CONCURRENT_REQUESTS (1 by default) requests are sent while next one is being built.
+     *
+     * @param indexName
+     * @param documents   documents by id (a null id lets ES generate it)
+     * @throws ElasticsearchException if any document could not be indexed
+     */
+    public void indexDocuments(String indexName, List<Map.Entry<String, String>> documents) {
+        List<String> failures = Collections.synchronizedList(new ArrayList<>());
+        BulkProcessor.Listener listener = new BulkProcessor.Listener() {
+            @Override
+            public void beforeBulk(long executionId, BulkRequest request) {
+                LOGGER.debug("Sending bulk request {} with {} documents", executionId, request.numberOfActions());
+            }
+
+            @Override
+            public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+                if (response.hasFailures()) {
+                    failures.add(response.buildFailureMessage());
+                }
+            }
+
+            @Override
+            public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
+                failures.add(failure.getMessage());
+            }
+        };
+
+        BiConsumer<BulkRequest, ActionListener<BulkResponse>> consumer = (request, bulkListener) -> client.bulkAsync(request, RequestOptions.DEFAULT, bulkListener);
+        BulkProcessor processor = BulkProcessor.builder(consumer, listener)
+                .setBulkActions(Integer.parseInt(System.getProperty("ES_BULK_ACTIONS", "1000")))
+                .setBulkSize(new ByteSizeValue(Long.parseLong(System.getProperty("ES_BULK_SIZE_MB", "5")), ByteSizeUnit.MB))
+                .setConcurrentRequests(Integer.parseInt(System.getProperty("ES_BULK_CONCURRENT_REQUESTS", "1")))
+                .build();
+
+        try {
+            for (Map.Entry<String, String> document : documents) {
+                processor.add(new IndexRequest(indexName).id(document.getKey()).source(document.getValue(), XContentType.JSON));
+            }
+            if (!processor.awaitClose(5, TimeUnit.MINUTES)) {
+                failures.add("Timeout waiting for bulk requests to finish");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ElasticsearchException("Interrupted indexing documents", e);
+        }
+
+        if (!failures.isEmpty()) {
+            throw new ElasticsearchException("Error indexing documents: " + String.join("\n", failures));
         }
-        return resultsJSON;
     }
 
     /**
@@ -25,10 +25,15 @@ import java.util.List;
 public enum ExceptionList {
     INSTANCE;
 
-    private final List<Exception> exceptions = new ArrayList<Exception>();
+    // Scenarios may run in parallel, each worker keeps its own exception list
+    private final ThreadLocal<List<Exception>> exceptions = new ThreadLocal<List<Exception>>() {
+        protected List<Exception> initialValue() {
+            return new ArrayList<Exception>();
+        }
+    };
 
     public List<Exception> getExceptions() {
-        return exceptions;
+        return exceptions.get();
     }
 
 }
\ No newline at end of file
@@ -20,6 +20,7 @@ import java.io.*;
 import java.net.URI;
 import java.security.SecureRandom;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.security.cert.X509Certificate;
 import java.util.stream.Collectors;
 import javax.net.ssl.*;
@@ -33,13 +34,20 @@ import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.cookie.Cookie;
+import org.apache.http.impl.client.BasicCookieStore;
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.LaxRedirectStrategy;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.message.BasicNameValuePair;
 import org.apache.http.ssl.SSLContexts;
+import org.apache.http.util.EntityUtils;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.select.Elements;
@@ -47,6 +55,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class GosecSSOUtils {
+    private static final Map<String, CachedToken> TOKEN_CACHE = new ConcurrentHashMap<>();
+
+    private static final Map<Boolean, CloseableHttpClient> CLIENTS = new HashMap<>();
+
     private final Logger logger = LoggerFactory.getLogger(this.getClass().getCanonicalName());
 
     public String userName = System.getProperty("user", "admin");
@@ -82,35 +94,57 @@ public class GosecSSOUtils {
     }
 
     /**
-     * This method provide tokens to be used to generate client cookie
+     * This method provide tokens to be used to generate client cookie.
+     * <p>
+     * Tokens are cached process-wide by host, user and tenant, and reused until the first of their cookies expires
+     * (or SSO_TOKEN_CACHE_TTL seconds, 600 by default, for session cookies). A 0 TTL disables the cache.
+     *
      * @return cookieToken list of token generated
      * @throws Exception exception
      */
     public HashMap<String, String> ssoTokenGenerator(boolean addLogin) throws Exception {
+        long ttl = Long.parseLong(System.getProperty("SSO_TOKEN_CACHE_TTL", "600")) * 1000L;
+        String key = String.join("#", ssoHost, userName, passWord, String.valueOf(tenant), String.valueOf(governance), String.valueOf(addLogin));
+        CachedToken cached = TOKEN_CACHE.get(key);
+        if (ttl > 0 && cached != null && cached.expiresAt > System.currentTimeMillis()) {
+            logger.debug("Reusing sso token for {} in {}", userName, ssoHost);
+            return new HashMap<>(cached.cookies);
+        }
+
+        HttpClientContext context = HttpClientContext.create();
+        context.setCookieStore(new BasicCookieStore());
+        HashMap<String, String> cookieToken = login(addLogin, context);
+
+        if (ttl > 0 && !cookieToken.isEmpty()) {
+            long expiresAt = System.currentTimeMillis() + ttl;
+            for (Cookie oneCookie : context.getCookieStore().getCookies()) {
+                if (oneCookie.getExpiryDate() != null) {
+                    expiresAt = Math.min(expiresAt, oneCookie.getExpiryDate().getTime());
+                }
+            }
+            TOKEN_CACHE.put(key, new CachedToken(cookieToken, expiresAt));
+        }
+        return cookieToken;
+    }
+
+    /**
+     * Discards cached tokens of a host, so next login against it is done again (i.e. after a 401).
+     *
+     * @param host sso host
+     */
+    public static void invalidateTokens(String host) {
+        TOKEN_CACHE.keySet().removeIf(key -> key.startsWith(host + "#"));
+    }
+
+    private HashMap<String, String> login(boolean addLogin, HttpClientContext context) throws Exception {
         String protocol = "https://";
         HashMap<String, String> cookieToken = new HashMap<>();
-        SSLContext sslContext = SSLContext.getInstance("SSL");
-        // set up a TrustManager that trusts everything
-        sslContext.init(null, ALL_TRUSTING_TRUST_MANAGER, new SecureRandom());
-        HttpClientContext context = HttpClientContext.create();
         HttpGet httpGet = new HttpGet(protocol + ssoHost + "/login");
         if (!addLogin) {
             httpGet = new HttpGet(protocol + ssoHost);
         }
-        HttpClientBuilder clientBuilder = HttpClientBuilder.create()
-                .setSslcontext(sslContext)
-                .setRedirectStrategy(new LaxRedirectStrategy())
-                .setDefaultRequestConfig(RequestConfig.custom()
-                .setCookieSpec(CookieSpecs.STANDARD).setCircularRedirectsAllowed(true).build());
-
-        if (!this.verifyHost) {
-            SSLConnectionSocketFactory scsf = new SSLConnectionSocketFactory(SSLContexts.custom().
-                    loadTrustMaterial((chain, authType) -> true)
-                    .build(), NoopHostnameVerifier.INSTANCE);
-            clientBuilder.setSSLSocketFactory(scsf);
-        }
 
-        HttpClient client = clientBuilder.build();
+        HttpClient client = getClient(this.verifyHost);
         try {
             HttpResponse firstResponse = client.execute(httpGet, context);
 
@@ -140,6 +174,7 @@ public class GosecSSOUtils {
             HttpPost httpPost = new HttpPost(redirect);
             httpPost.setEntity(new UrlEncodedFormEntity(params));
             HttpResponse secondResponse = client.execute(httpPost, context);
+            EntityUtils.consumeQuietly(secondResponse.getEntity());
 
             for (Header oneHeader : secondResponse.getAllHeaders()) {
                 logger.debug(oneHeader.getName() + ":" + oneHeader.getValue());
@@ -151,7 +186,7 @@ public class GosecSSOUtils {
             } else {
                 getRequest = new HttpGet(protocol + ssoHost + managementHost);
             }
-            client.execute(getRequest, context);
+            EntityUtils.consumeQuietly(client.execute(getRequest, context).getEntity());
             for (Cookie oneCookie : context.getCookieStore().getCookies()) {
                 logger.debug(oneCookie.getName() + ":" + oneCookie.getValue());
                 cookieToken.put(oneCookie.getName(), oneCookie.getValue());
@@ -164,6 +199,52 @@ public class GosecSSOUtils {
         return cookieToken;
     }
 
+    /**
+     * Pooled clients are shared by all logins: one verifying host names and another one that does not.
+     * Cookies are kept in the context of every login, never in the client.
+     */
+    private static synchronized HttpClient getClient(boolean verifyHost) throws Exception {
+        CloseableHttpClient client = CLIENTS.get(verifyHost);
+        if (client == null) {
+            SSLConnectionSocketFactory scsf;
+            if (verifyHost) {
+                SSLContext sslContext = SSLContext.getInstance("SSL");
+                // set up a TrustManager that trusts everything
+                sslContext.init(null, ALL_TRUSTING_TRUST_MANAGER, new SecureRandom());
+                scsf = new SSLConnectionSocketFactory(sslContext);
+            } else {
+                scsf = new SSLConnectionSocketFactory(SSLContexts.custom().
+                        loadTrustMaterial((chain, authType) -> true)
+                        .build(), NoopHostnameVerifier.INSTANCE);
+            }
+            PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(RegistryBuilder.<ConnectionSocketFactory>create()
+                    .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                    .register("https", scsf)
+                    .build());
+            connectionManager.setDefaultMaxPerRoute(Integer.parseInt(System.getProperty("REST_CLIENT_MAX_CONNECTIONS_PER_HOST", "20")));
+            client = HttpClientBuilder.create()
+                    .setConnectionManager(connectionManager)
+                    .setRedirectStrategy(new LaxRedirectStrategy())
+                    .setDefaultRequestConfig(RequestConfig.custom()
+                    .setCookieSpec(CookieSpecs.STANDARD).setCircularRedirectsAllowed(true).build())
+                    .build();
+            CLIENTS.put(verifyHost, client);
+        }
+        return client;
+    }
+
+    private static final class CachedToken {
+
+        private final HashMap<String, String> cookies;
+
+        private final long expiresAt;
+
+        private CachedToken(HashMap<String, String> cookies, long expiresAt) {
+            this.cookies = cookies;
+            this.expiresAt = expiresAt;
+        }
+    }
+
     private static final TrustManager[] ALL_TRUSTING_TRUST_MANAGER = new TrustManager[]{
         new X509TrustManager() {
             public X509Certificate[] getAcceptedIssuers() {
@@ -23,9 +23,10 @@ import org.apache.kafka.clients.admin.KafkaAdminClient;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.admin.NewPartitions;
 import org.apache.kafka.clients.admin.ListTopicsResult;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
-import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
@@ -36,6 +37,7 @@ import org.apache.kafka.clients.CommonClientConfigs;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.config.SslConfigs;
 import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.PartitionInfo;
 import org.apache.kafka.common.TopicPartition;
 
 import java.time.Duration;
@@ -63,6 +65,10 @@ public class KafkaSecUtils {
 
     AdminClient adminClient;
 
+    private static final long POLL_INTERVAL_MS = 500L;
+
+    private final Map<String, Map<TopicPartition, Long>> savedOffsets = new HashMap<>();
+
     public KafkaSecUtils() {
         kafkaConsumerTimeoutMS = System.getProperty("KAFKA_CONSUMER_TIMEOUT_MS") != null ? Long.parseLong(System.getProperty("KAFKA_CONSUMER_TIMEOUT_MS")) : 10000L;
         kafkaProducerTimeoutMS = System.getProperty("KAFKA_PRODUCER_TIMEOUT_MS") != null ? Long.parseLong(System.getProperty("KAFKA_PRODUCER_TIMEOUT_MS")) : 10000L;
@@ -434,8 +440,6 @@ public class KafkaSecUtils {
 
         try (KafkaConsumer<String, String> consumer = new KafkaConsumer<>(kafkaConsumerProperties)) {
 
-            List<String> result = new ArrayList<>();
-
             if (partitionId == null) {
                 consumer.subscribe(asList(topic));
             } else {
@@ -443,13 +447,10 @@ public class KafkaSecUtils {
                 consumer.assign(asList(partition));
             }
 
-            ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(kafkaConsumerTimeoutMS));
-
-            for (ConsumerRecord<String, String> record : records) {
-                result.add(record.value());
-            }
+            Set<String> pending = new HashSet<>(asList(message));
+            pollUntil(consumer, kafkaConsumerTimeoutMS, pending, 0);
 
-            Assertions.assertThat(result.contains(message)).as("Topic does not exist or the content does not match").isTrue();
+            Assertions.assertThat(pending.isEmpty()).as("Topic does not exist or the content does not match").isTrue();
         } catch (Exception e) {
             logger.error("Not possible to consume from topic: {} with error: {}", topic, e.getMessage());
             throw e;
@@ -471,19 +472,15 @@ public class KafkaSecUtils {
 
         try (KafkaConsumer<String, String> consumer = new KafkaConsumer<>(kafkaConsumerProperties)) {
 
-            List<String> result = new ArrayList<>();
-
             consumer.subscribe(asList(topic));
 
-            ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(kafkaConsumerTimeoutMS));
-
-            for (ConsumerRecord<String, String> record : records) {
-                result.add(record.value());
-            }
-
+            Set<String> pending = new HashSet<>();
             for (int i = 0; i < 5; i++) {
-                Assertions.assertThat(result.contains(message + i)).as("Topic does not exist or the content does not match").isTrue();
+                pending.add(message + i);
             }
+            pollUntil(consumer, kafkaConsumerTimeoutMS, pending, 0);
+
+            Assertions.assertThat(pending).as("Topic does not exist or the content does not match").isEmpty();
         } catch (Exception e) {
             logger.error("Not possible to consume from topic: {} with error: {}", topic, e.getMessage());
             throw e;
@@ -504,8 +501,6 @@ public class KafkaSecUtils {
 
         try (KafkaConsumer<String, String> consumer = new KafkaConsumer<>(kafkaConsumerProperties)) {
 
-            List<String> result = new ArrayList<>();
-
             if (partitionId == null) {
                 consumer.subscribe(asList(topic));
             } else {
@@ -513,20 +508,7 @@ public class KafkaSecUtils {
                 consumer.assign(asList(partition));
             }
 
-            ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(kafkaConsumerTimeoutMS));
-
-            for (ConsumerRecord<String, String> record : records) {
-                result.add(record.value());
-            }
-
-            Assertions.assertThat(result.size()).as("Expected number of messages: " + numMessages + ", different from existing ones: " + result.size()).isEqualTo(Integer.parseInt(numMessages));
-
-            if (values != null) {
-                for (int i = 0; i < values.cells().size(); i++) {
-                    String value = values.cells().get(i).get(0);
-                    Assertions.assertThat(result.contains(value)).as("Topic: " + topic + " does not contain value: " + value).isTrue();
-                }
-            }
+            checkNMessages(consumer, topic, Integer.parseInt(numMessages), values, kafkaConsumerTimeoutMS);
         } catch (Exception e) {
             logger.error("Not possible to consume from topic: {} with error: {}", topic, e.getMessage());
             throw e;
@@ -542,6 +524,203 @@ public class KafkaSecUtils {
         closeConnection();
     }
 
+    /**
+     * Saves the current end offset of every partition of a topic. Next {@link #waitForMessage} and
+     * {@link #waitForNMessages} calls only look at messages produced after this point.
+     *
+     * @param topic topic
+     */
+    public void saveOffsets(String topic) {
+        try (KafkaConsumer<String, String> consumer = new KafkaConsumer<>(offsetAwareConsumerProperties())) {
+            savedOffsets.put(topic, new HashMap<>(consumer.endOffsets(partitionsFor(consumer, topic))));
+        }
+        logger.debug("Saved offsets for topic {}: {}", topic, savedOffsets.get(topic));
+    }
+
+    /**
+     * Saves, for every partition of a topic, the offset of the first message produced at or after a timestamp.
+     * Partitions without such a message are saved at their current end offset.
+     *
+     * @param topic     topic
+     * @param timestamp epoch milliseconds
+     */
+    public void saveOffsets(String topic, long timestamp) {
+        try (KafkaConsumer<String, String> consumer = new KafkaConsumer<>(offsetAwareConsumerProperties())) {
+            List<TopicPartition> partitions = partitionsFor(consumer, topic);
+            Map<TopicPartition, Long> timestamps = new HashMap<>();
+            for (TopicPartition partition : partitions) {
+                timestamps.put(partition, timestamp);
+            }
+            Map<TopicPartition, OffsetAndTimestamp> byTime = consumer.offsetsForTimes(timestamps);
+            Map<TopicPartition, Long> offsets = new HashMap<>(consumer.endOffsets(partitions));
+            for (Map.Entry<TopicPartition, OffsetAndTimestamp> entry : byTime.entrySet()) {
+                if (entry.getValue() != null) {
+                    offsets.put(entry.getKey(), entry.getValue().offset());
+                }
+            }
+            savedOffsets.put(topic, offsets);
+        }
+        logger.debug("Saved offsets for topic {} since {}: {}", topic, timestamp, savedOffsets.get(topic));
+    }
+
+    /**
+     * Waits until a message is found in a topic, reading from the saved offsets (or from the beginning if none were
+     * saved). Records are matched while polling, so the method returns as soon as the message is seen.
+     *
+     * @param topic     topic
+     * @param message   message to look for
+     * @param timeoutMS max time to wait
+     */
+    public void waitForMessage(String topic, String message, long timeoutMS) {
+        try (KafkaConsumer<String, String> consumer = new KafkaConsumer<>(offsetAwareConsumerProperties())) {
+            seekToSavedOffsets(consumer, topic);
+
+            Set<String> pending = new HashSet<>(asList(message));
+            pollUntil(consumer, timeoutMS, pending, 0);
+
+            Assertions.assertThat(pending.isEmpty()).as("Message " + message + " not found in topic " + topic + " after " + timeoutMS + " ms").isTrue();
+        } catch (Exception e) {
+            logger.error("Not possible to consume from topic: {} with error: {}", topic, e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Waits until a number of messages are found in a topic, reading from the saved offsets (or from the beginning if
+     * none were saved).
+     *
+     * @param topic       topic
+     * @param numMessages expected number of messages
+     * @param values      values that must be among the messages (optional)
+     * @param timeoutMS   max time to wait
+     */
+    public void waitForNMessages(String topic, int numMessages, DataTable values, long timeoutMS) {
+        try (KafkaConsumer<String, String> consumer = new KafkaConsumer<>(offsetAwareConsumerProperties())) {
+            seekToSavedOffsets(consumer, topic);
+            checkNMessages(consumer, topic, numMessages, values, timeoutMS);
+        } catch (Exception e) {
+            logger.error("Not possible to consume from topic: {} with error: {}", topic, e.getMessage());
+            throw e;
+        }
+    }
+
+    private void checkNMessages(Consumer<String, String> consumer, String topic, int numMessages, DataTable values, long timeoutMS) {
+        Set<String> pending = new HashSet<>();
+        if (values != null) {
+            for (int i = 0; i < values.cells().size(); i++) {
+                pending.add(values.cells().get(i).get(0));
+            }
+        }
+
+        long count = pollToEnd(consumer, timeoutMS, pending, numMessages);
+
+        Assertions.assertThat(count).as("Expected number of messages: " + numMessages + ", different from existing ones: " + count).isEqualTo(numMessages);
+        Assertions.assertThat(pending).as("Topic: " + topic + " does not contain values: " + pending).isEmpty();
+    }
+
+    /**
+     * Polls until every pending value has been seen and at least minRecords records have been read, or timeoutMS
+     * expires. Seen values are removed from pending.
+     *
+     * @param consumer   consumer already subscribed or assigned
+     * @param timeoutMS  max time to wait
+     * @param pending    values still to be seen
+     * @param minRecords min number of records to read
+     * @return number of records read
+     */
+    static long pollUntil(Consumer<String, String> consumer, long timeoutMS, Set<String> pending, int minRecords) {
+        long count = 0;
+        long deadline = System.currentTimeMillis() + timeoutMS;
+        long remaining = timeoutMS;
+        while ((!pending.isEmpty() || count < minRecords) && remaining > 0) {
+            for (ConsumerRecord<String, String> record : consumer.poll(Duration.ofMillis(Math.min(remaining, POLL_INTERVAL_MS)))) {
+                count++;
+                pending.remove(record.value());
+            }
+            remaining = deadline - System.currentTimeMillis();
+        }
+        return count;
+    }
+
+    /**
+     * Like {@link #pollUntil}, but it also keeps polling until every assigned partition has been read up to its end
+     * offset when polling started, so messages already in the topic beyond minRecords are counted too. Used to check
+     * an exact number of messages.
+     *
+     * @param consumer   consumer already subscribed or assigned
+     * @param timeoutMS  max time to wait
+     * @param pending    values still to be seen
+     * @param minRecords min number of records to read
+     * @return number of records read
+     */
+    static long pollToEnd(Consumer<String, String> consumer, long timeoutMS, Set<String> pending, int minRecords) {
+        long count = 0;
+        long deadline = System.currentTimeMillis() + timeoutMS;
+        long remaining = timeoutMS;
+        // subscribed consumers get their partitions in the first poll
+        Map<TopicPartition, Long> endOffsets = consumer.assignment().isEmpty() ? null : consumer.endOffsets(consumer.assignment());
+        while ((endOffsets == null || !pending.isEmpty() || count < minRecords || !isAtEnd(consumer, endOffsets)) && remaining > 0) {
+            for (ConsumerRecord<String, String> record : consumer.poll(Duration.ofMillis(Math.min(remaining, POLL_INTERVAL_MS)))) {
+                count++;
+                pending.remove(record.value());
+            }
+            if (endOffsets == null && !consumer.assignment().isEmpty()) {
+                endOffsets = consumer.endOffsets(consumer.assignment());
+            }
+            remaining = deadline - System.currentTimeMillis();
+        }
+        return count;
+    }
+
+    private static boolean isAtEnd(Consumer<String, String> consumer, Map<TopicPartition, Long> endOffsets) {
+        for (Map.Entry<TopicPartition, Long> entry : endOffsets.entrySet()) {
+            if (entry.getValue() != null && consumer.position(entry.getKey()) < entry.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void seekToSavedOffsets(Consumer<String, String> consumer, String topic) {
+        List<TopicPartition> partitions = partitionsFor(consumer, topic);
+        consumer.assign(partitions);
+        Map<TopicPartition, Long> offsets = savedOffsets.get(topic);
+        if (offsets == null) {
+            consumer.seekToBeginning(partitions);
+            return;
+        }
+        for (TopicPartition partition : partitions) {
+            Long offset = offsets.get(partition);
+            if (offset != null) {
+                consumer.seek(partition, offset);
+            } else {
+                // partition added after offsets were saved
+                consumer.seekToBeginning(asList(partition));
+            }
+        }
+    }
+
+    private List<TopicPartition> partitionsFor(Consumer<String, String> consumer, String topic) {
+        List<TopicPartition> partitions = new ArrayList<>();
+        List<PartitionInfo> infos = consumer.partitionsFor(topic);
+        Assertions.assertThat(infos).as("Topic " + topic + " does not exist").isNotEmpty();
+        for (PartitionInfo info : infos) {
+            partitions.add(new TopicPartition(topic, info.partition()));
+        }
+        return partitions;
+    }
+
+    /**
+     * Offset aware consumers assign partitions and seek by themselves, so they do not join any group nor commit.
+     */
+    private Properties offsetAwareConsumerProperties() {
+        Properties properties = new Properties();
+        properties.putAll(kafkaConsumerProperties);
+        properties.remove(ConsumerConfig.GROUP_ID_CONFIG);
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        return properties;
+    }
+
     public void numbersOfPartitionsIsN(String topic, String numPartitions) throws Exception {
         int partitions = adminClient.describeTopics(asList(topic)).all().get().get(topic).partitions().size();
 
@@ -0,0 +1,252 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Runs commands in a local shell.
+ * <p>
+ * stdin is written and stdout and stderr are drained concurrently while the process is running, so commands with large
+ * inputs or outputs do not block on a full pipe. It can be tuned with these system properties:
+ * <ul>
+ *     <li>BDT_LOCAL_PROCESS_TIMEOUT: seconds to wait for the command before killing it (default 0, no timeout)</li>
+ *     <li>BDT_LOCAL_PROCESS_MAX_OUTPUT: max chars kept of stdout and stderr, the rest is discarded (default 16777216)</li>
+ * </ul>
+ */
+public class LocalCommandRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LocalCommandRunner.class);
+
+    /**
+     * Time to wait for the output of a killed process to be drained
+     */
+    private static final long DRAIN_WAIT_MILLIS = 5000;
+
+    private final long timeoutMillis;
+
+    private final int maxOutput;
+
+    public LocalCommandRunner() {
+        this(TimeUnit.SECONDS.toMillis(Long.parseLong(System.getProperty("BDT_LOCAL_PROCESS_TIMEOUT", "0"))),
+                Integer.parseInt(System.getProperty("BDT_LOCAL_PROCESS_MAX_OUTPUT", "16777216")));
+    }
+
+    /**
+     * @param timeoutMillis max time to wait for a command, 0 to wait until it finishes
+     * @param maxOutput     max chars kept of stdout and stderr
+     */
+    public LocalCommandRunner(long timeoutMillis, int maxOutput) {
+        this.timeoutMillis = timeoutMillis;
+        this.maxOutput = maxOutput;
+    }
+
+    /**
+     * Runs the command with /bin/sh and waits for it to finish.
+     * <p>
+     * If the timeout expires or the calling thread is interrupted, the process is killed.
+     *
+     * @param command      command to run
+     * @param lineListener receives every line of stdout as soon as it is read, can be null
+     * @return stdout lines joined with \n, stderr and exit status
+     * @throws IOException          if the process can not be started
+     * @throws InterruptedException if interrupted while waiting for the command
+     */
+    public Result run(String command, Consumer<String> lineListener) throws IOException, InterruptedException {
+        return run(command, null, lineListener);
+    }
+
+    /**
+     * Runs the command with /bin/sh, writing the input to its stdin, and waits for it to finish.
+     * <p>
+     * If the timeout expires or the calling thread is interrupted, the process is killed.
+     *
+     * @param command      command to run
+     * @param input        text written to stdin, can be null
+     * @param lineListener receives every line of stdout as soon as it is read, can be null
+     * @return stdout lines joined with \n, stderr and exit status
+     * @throws IOException          if the process can not be started
+     * @throws InterruptedException if interrupted while waiting for the command
+     */
+    public Result run(String command, String input, Consumer<String> lineListener) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder("/bin/sh", "-c", command).start();
+
+        StreamDrainer stdout = new StreamDrainer(process.getInputStream(), lineListener);
+        StreamDrainer stderr = new StreamDrainer(process.getErrorStream(), null);
+        InputWriter stdin = new InputWriter(process.getOutputStream(), input);
+        stdout.start();
+        stderr.start();
+        stdin.start();
+
+        boolean timedOut = false;
+        try {
+            if (timeoutMillis > 0) {
+                timedOut = !process.waitFor(timeoutMillis, TimeUnit.MILLISECONDS);
+            } else {
+                process.waitFor();
+            }
+        } finally {
+            if (process.isAlive()) {
+                process.destroyForcibly();
+            }
+        }
+
+        if (timedOut) {
+            LOGGER.warn("Command timed out after {} ms and was killed: {}", timeoutMillis, command);
+            // Children of the shell could keep the pipes open
+            stdout.join(DRAIN_WAIT_MILLIS);
+            stderr.join(DRAIN_WAIT_MILLIS);
+        } else {
+            stdout.join();
+            stderr.join();
+        }
+
+        return new Result(stdout.getOutput(), stderr.getOutput(), timedOut ? -1 : process.exitValue(), timedOut);
+    }
+
+    /**
+     * Writes the input of a process in its own thread, so a command that does not read it can not block the caller
+     * on a full pipe. stdin is closed once written, so commands reading it do not wait forever.
+     */
+    private static class InputWriter extends Thread {
+
+        private final OutputStream stream;
+
+        private final String input;
+
+        InputWriter(OutputStream stream, String input) {
+            this.stream = stream;
+            this.input = input;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try (Writer writer = new OutputStreamWriter(stream)) {
+                if (input != null) {
+                    writer.write(input);
+                }
+            } catch (IOException e) {
+                // The command exited, or was killed, without reading all its input
+                LOGGER.debug("Error writing process input: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reads the lines of a process stream in its own thread
+     */
+    private class StreamDrainer extends Thread {
+
+        private final InputStream stream;
+
+        private final Consumer<String> lineListener;
+
+        private final StringBuilder output = new StringBuilder();
+
+        private boolean truncated = false;
+
+        StreamDrainer(InputStream stream, Consumer<String> lineListener) {
+            this.stream = stream;
+            this.lineListener = lineListener;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    append(line);
+                    if (lineListener != null) {
+                        lineListener.accept(line);
+                    }
+                }
+            } catch (IOException e) {
+                // Stream closed because the process was killed
+                LOGGER.debug("Error reading process output: {}", e.getMessage());
+            }
+        }
+
+        private synchronized void append(String line) {
+            if (truncated) {
+                return;
+            }
+            if (output.length() + line.length() + 1 > maxOutput) {
+                truncated = true;
+                LOGGER.warn("Command output exceeds {} chars, the rest is discarded", maxOutput);
+                return;
+            }
+            if (output.length() > 0) {
+                output.append('\n');
+            }
+            output.append(line);
+        }
+
+        synchronized String getOutput() {
+            return output.toString();
+        }
+    }
+
+    /**
+     * Output and exit status of a local command
+     */
+    public static class Result {
+
+        private final String output;
+
+        private final String error;
+
+        private final int exitStatus;
+
+        private final boolean timedOut;
+
+        public Result(String output, String error, int exitStatus, boolean timedOut) {
+            this.output = output;
+            this.error = error;
+            this.exitStatus = exitStatus;
+            this.timedOut = timedOut;
+        }
+
+        public String getOutput() {
+            return output;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public int getExitStatus() {
+            return exitStatus;
+        }
+
+        public boolean isTimedOut() {
+            return timedOut;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a task in several nodes concurrently, keeping the result of every node.
+ * <p>
+ * It can be tuned with these system properties:
+ * <ul>
+ *     <li>BDT_NODES_PARALLELISM: max nodes accessed at the same time (default 10)</li>
+ *     <li>BDT_NODE_TIMEOUT: seconds to wait for the task in a node before interrupting it (default 0, no timeout)</li>
+ * </ul>
+ * If the calling thread is interrupted, the tasks still running are interrupted too.
+ */
+public class MultiNodeCommandExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MultiNodeCommandExecutor.class);
+
+    private final int parallelism;
+
+    private final long timeoutMillis;
+
+    public MultiNodeCommandExecutor() {
+        this(Integer.parseInt(System.getProperty("BDT_NODES_PARALLELISM", "10")),
+                TimeUnit.SECONDS.toMillis(Long.parseLong(System.getProperty("BDT_NODE_TIMEOUT", "0"))));
+    }
+
+    /**
+     * @param parallelism   max nodes accessed at the same time
+     * @param timeoutMillis max time to wait for the task in a node, 0 to wait until it finishes
+     */
+    public MultiNodeCommandExecutor(int parallelism, long timeoutMillis) {
+        this.parallelism = parallelism;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Runs the task in all the nodes and waits for all of them to finish.
+     *
+     * @param nodes nodes where to run the task
+     * @param task  task to run in every node
+     * @return result of every node, in the same order as the nodes
+     * @throws InterruptedException if interrupted while waiting for the nodes
+     */
+    public List<NodeResult> execute(List<String> nodes, NodeTask task) throws InterruptedException {
+        List<NodeResult> results = new ArrayList<>();
+        if (nodes.isEmpty()) {
+            return results;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(nodes.size(), Math.max(parallelism, 1)));
+        ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor();
+        try {
+            List<Future<NodeResult>> futures = new ArrayList<>();
+            for (String node : nodes) {
+                futures.add(executor.submit(() -> run(node, task, watchdog)));
+            }
+            for (Future<NodeResult> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    // run does not throw
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            watchdog.shutdownNow();
+        }
+        return results;
+    }
+
+    private NodeResult run(String node, NodeTask task, ScheduledExecutorService watchdog) {
+        Watch watch = new Watch(Thread.currentThread());
+        ScheduledFuture<?> timer = timeoutMillis > 0 ? watchdog.schedule(watch::expire, timeoutMillis, TimeUnit.MILLISECONDS) : null;
+        try {
+            RemoteSSHConnection.CommandResult result = task.run(node);
+            if (!watch.finish()) {
+                return new NodeResult(node, result.getOutput(), result.getExitStatus(), false, null);
+            }
+            return timedOut(node);
+        } catch (Exception e) {
+            if (watch.finish()) {
+                return timedOut(node);
+            }
+            LOGGER.warn("Error in node {}: {}", node, e.getMessage());
+            return new NodeResult(node, "", -1, false, e.getMessage() == null ? e.toString() : e.getMessage());
+        } finally {
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            // Clear an interruption of the watchdog, so the thread can be reused
+            Thread.interrupted();
+        }
+    }
+
+    private NodeResult timedOut(String node) {
+        LOGGER.warn("Task in node {} timed out after {} ms and was interrupted", node, timeoutMillis);
+        return new NodeResult(node, "", -1, true, "Timed out after " + timeoutMillis + " ms");
+    }
+
+    /**
+     * Interrupts the worker thread of a node if its task has not finished when the timeout expires
+     */
+    private static final class Watch {
+
+        private final Thread worker;
+
+        private boolean finished = false;
+
+        private boolean expired = false;
+
+        Watch(Thread worker) {
+            this.worker = worker;
+        }
+
+        synchronized void expire() {
+            if (!finished) {
+                expired = true;
+                worker.interrupt();
+            }
+        }
+
+        /**
+         * @return true if the timeout expired before the task finished
+         */
+        synchronized boolean finish() {
+            finished = true;
+            return expired;
+        }
+    }
+
+    /**
+     * Task run in a node
+     */
+    @FunctionalInterface
+    public interface NodeTask {
+        RemoteSSHConnection.CommandResult run(String node) throws Exception;
+    }
+
+    /**
+     * Output and exit status of the task in a node
+     */
+    public static class NodeResult {
+
+        private final String node;
+
+        private final String output;
+
+        private final int exitStatus;
+
+        private final boolean timedOut;
+
+        private final String error;
+
+        public NodeResult(String node, String output, int exitStatus, boolean timedOut, String error) {
+            this.node = node;
+            this.output = output;
+            this.exitStatus = exitStatus;
+            this.timedOut = timedOut;
+            this.error = error;
+        }
+
+        public String getNode() {
+            return node;
+        }
+
+        public String getOutput() {
+            return output;
+        }
+
+        public int getExitStatus() {
+            return exitStatus;
+        }
+
+        public boolean isTimedOut() {
+            return timedOut;
+        }
+
+        /**
+         * @return error message if the task could not be completed (i.e. the node was not reachable), else null
+         */
+        public String getError() {
+            return error;
+        }
+    }
+}
@@ -21,12 +21,27 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 
 public class RemoteSSHConnection {
 
+    private static final int OUTPUT_BUFFER_SIZE = 8192;
+
+    private static final long CHANNEL_CLOSE_WAIT_MILLIS = 10;
+
+    /**
+     * sshd allows 10 sessions (channels) per connection by default
+     */
+    private static final int MAX_CONCURRENT_CHANNELS = 10;
+
     private final Logger logger = LoggerFactory.getLogger(RemoteSSHConnection.class);
 
     private Session session;
@@ -236,47 +251,89 @@ public class RemoteSSHConnection {
      * @param command
      */
     public void runCommand(String command) throws Exception {
-        String result = "";
+        CommandResult commandResult = executeCommand(command, null);
+        this.setResult(commandResult.getOutput());
+        this.exitStatus = commandResult.getExitStatus();
+    }
+
+    /**
+     * Execute the command in its own exec channel of the session created.
+     * <p>
+     * Output is read as soon as it is available and the method returns when the channel is closed, so it does not
+     * modify the result and exit status of this connection and can be called concurrently.
+     *
+     * @param command command to execute
+     * @param outputListener receives every chunk of output as it is read, can be null
+     * @return command output and exit status
+     */
+    public CommandResult executeCommand(String command, Consumer<String> outputListener) throws Exception {
         String extras = "export PYTHONWARNINGS=\"ignore:Unverified HTTPS request\" && ";
 
-        Channel channel = session.openChannel("exec");
-        ((ChannelExec) channel).setCommand(extras + command);
+        ChannelExec channel = (ChannelExec) session.openChannel("exec");
+        channel.setCommand(extras + command);
 
         channel.setInputStream(null);
-        ((ChannelExec) channel).setErrStream(System.err);
+        channel.setErrStream(System.err);
 
-        InputStream in = channel.getInputStream();
+        Reader in = new InputStreamReader(channel.getInputStream(), StandardCharsets.UTF_8);
 
-        ((ChannelExec) channel).setPty(true);
+        channel.setPty(true);
 
         channel.connect();
 
-        byte[] tmp = new byte[1024];
-        while (true) {
-            while (in.available() > 0) {
-                int i = in.read(tmp, 0, 1024);
-                if (i < 0) {
-                    break;
+        try {
+            StringBuilder output = new StringBuilder();
+            char[] tmp = new char[OUTPUT_BUFFER_SIZE];
+            int read;
+            // read blocks until there is output and returns -1 once the remote end closes the stream
+            while ((read = in.read(tmp, 0, tmp.length)) >= 0) {
+                String chunk = new String(tmp, 0, read);
+                output.append(chunk);
+                if (outputListener != null) {
+                    outputListener.accept(chunk);
                 }
-                result = result + new String(tmp, 0, i);
             }
-            this.result = result;
-            this.setResult(result);
+            // exit status is sent right before the channel is closed
+            while (!channel.isClosed()) {
+                Thread.sleep(CHANNEL_CLOSE_WAIT_MILLIS);
+            }
+            return new CommandResult(output.toString(), channel.getExitStatus());
+        } finally {
+            channel.disconnect();
+        }
+    }
 
-            if (channel.isClosed()) {
-                if (in.available() > 0) {
-                    continue;
-                }
-                this.exitStatus = channel.getExitStatus();
-                break;
+    /**
+     * Execute the commands concurrently, each one in its own exec channel of the session created
+     *
+     * @param commands commands to execute
+     * @return command results, in the same order as the commands
+     */
+    public List<CommandResult> executeCommands(List<String> commands) throws Exception {
+        List<CommandResult> results = new ArrayList<>();
+        if (commands.isEmpty()) {
+            return results;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(commands.size(), MAX_CONCURRENT_CHANNELS));
+        try {
+            List<Future<CommandResult>> futures = new ArrayList<>();
+            for (String command : commands) {
+                futures.add(executor.submit(() -> executeCommand(command, null)));
             }
-            try {
-                Thread.sleep(1000);
-            } catch (Exception ee) {
+            for (Future<CommandResult> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof Exception) {
+                        throw (Exception) e.getCause();
+                    }
+                    throw e;
+                }
             }
+        } finally {
+            executor.shutdownNow();
         }
-
-        channel.disconnect();
+        return results;
     }
 
     /**
@@ -460,6 +517,29 @@ public class RemoteSSHConnection {
 
     }
 
+    /**
+     * Output and exit status of a command executed in an exec channel
+     */
+    public static class CommandResult {
+
+        private final String output;
+
+        private final int exitStatus;
+
+        public CommandResult(String output, int exitStatus) {
+            this.output = output;
+            this.exitStatus = exitStatus;
+        }
+
+        public String getOutput() {
+            return output;
+        }
+
+        public int getExitStatus() {
+            return exitStatus;
+        }
+    }
+
     private static class MyUserInfo implements UserInfo {
         public String getPassword() {
             return "";
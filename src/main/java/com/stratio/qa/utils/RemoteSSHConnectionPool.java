@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import com.jcraft.jsch.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SSH connections to the nodes of a cluster, kept open between steps (Singleton).
+ * <p>
+ * A connection is opened the first time a node is accessed with a user and pem file, and reused while its session is
+ * connected. Connections can be opened through a gateway session (i.e. the active ssh connection) when the nodes are
+ * only reachable from it, forwarding a local port to the ssh port of the node.
+ */
+public enum RemoteSSHConnectionPool {
+    INSTANCE;
+
+    private static final int SSH_PORT = 22;
+
+    private static final String LOCALHOST = "127.0.0.1";
+
+    private final Logger logger = LoggerFactory.getLogger(RemoteSSHConnectionPool.class);
+
+    private final Map<String, PooledConnection> connections = new HashMap<>();
+
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+
+    /**
+     * Returns an open connection to the node, opening a new one if there is none or it was disconnected.
+     * Connections to different nodes can be opened concurrently.
+     *
+     * @param user    remote user
+     * @param host    node host
+     * @param pemFile local pem file
+     * @param gateway session used to reach the node, null to connect directly
+     * @return connection to the node
+     * @throws Exception if the connection can not be opened
+     */
+    public RemoteSSHConnection getConnection(String user, String host, String pemFile, Session gateway) throws Exception {
+        String key = user + "@" + host + "#" + pemFile + (gateway == null ? "" : "#" + gateway.getUserName() + "@" + gateway.getHost() + ":" + gateway.getPort());
+        synchronized (locks.computeIfAbsent(key, k -> new Object())) {
+            PooledConnection pooled;
+            synchronized (this) {
+                pooled = connections.get(key);
+            }
+            if (pooled != null && pooled.isConnected()) {
+                return pooled.connection;
+            }
+            if (pooled != null) {
+                logger.debug("SSH connection to {} was closed, opening a new one", key);
+                pooled.close();
+            }
+            pooled = connect(user, host, pemFile, gateway);
+            synchronized (this) {
+                connections.put(key, pooled);
+            }
+            return pooled.connection;
+        }
+    }
+
+    /**
+     * Closes all the connections.
+     */
+    public void close() {
+        List<PooledConnection> pooled;
+        synchronized (this) {
+            pooled = new ArrayList<>(connections.values());
+            connections.clear();
+        }
+        for (PooledConnection connection : pooled) {
+            connection.close();
+        }
+    }
+
+    private PooledConnection connect(String user, String host, String pemFile, Session gateway) throws Exception {
+        if (gateway == null) {
+            return new PooledConnection(new RemoteSSHConnection(user, null, host, pemFile), null, 0);
+        }
+        int localPort = gateway.setPortForwardingL(0, host, SSH_PORT);
+        try {
+            return new PooledConnection(new RemoteSSHConnection(user, null, LOCALHOST, String.valueOf(localPort), pemFile), gateway, localPort);
+        } catch (Exception e) {
+            gateway.delPortForwardingL(localPort);
+            throw e;
+        }
+    }
+
+    /**
+     * Connection to a node and the gateway port forwarded to it, if any
+     */
+    private final class PooledConnection {
+
+        private final RemoteSSHConnection connection;
+
+        private final Session gateway;
+
+        private final int localPort;
+
+        PooledConnection(RemoteSSHConnection connection, Session gateway, int localPort) {
+            this.connection = connection;
+            this.gateway = gateway;
+            this.localPort = localPort;
+        }
+
+        boolean isConnected() {
+            return connection.getSession().isConnected() && (gateway == null || gateway.isConnected());
+        }
+
+        void close() {
+            try {
+                connection.closeConnection();
+                if (gateway != null && gateway.isConnected()) {
+                    gateway.delPortForwardingL(localPort);
+                }
+            } catch (Exception e) {
+                logger.debug("Error closing SSH connection: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pool of Selenium sessions shared by @web and @mobile scenarios (Singleton).
+ * <p>
+ * Creating a grid session takes several seconds, so when reuse is enabled a session is reset at the end of a scenario
+ * (extra windows closed, cookies of the current domain deleted, local and session storage cleared and about:blank
+ * loaded) and kept for the next scenario requesting the same browser. It can be tuned with these system properties:
+ * <ul>
+ *     <li>SELENIUM_SESSION_REUSE: true to reuse sessions between scenarios (default false)</li>
+ *     <li>SELENIUM_SESSION_POOL_SIZE: max idle sessions kept per browser (default 5)</li>
+ * </ul>
+ * Cookies of domains other than the one loaded at the end of the scenario are not deleted, so reuse is meant for
+ * suites whose scenarios work against the same application.
+ */
+public enum RemoteWebDriverUtil {
+    INSTANCE;
+
+    private final Logger logger = LoggerFactory.getLogger(RemoteWebDriverUtil.class);
+
+    private final Map<String, Deque<RemoteWebDriver>> idleDrivers = new HashMap<>();
+
+    public boolean isReuseEnabled() {
+        return Boolean.parseBoolean(System.getProperty("SELENIUM_SESSION_REUSE", "false"));
+    }
+
+    /**
+     * Returns an idle session created for the same key, if any. Idle sessions that no longer respond are quit.
+     *
+     * @param key grid and browser the session was created for
+     * @return idle session or null if a new one must be created
+     */
+    public RemoteWebDriver acquire(String key) {
+        if (!isReuseEnabled()) {
+            return null;
+        }
+        RemoteWebDriver driver;
+        while ((driver = pollIdle(key)) != null) {
+            try {
+                driver.getWindowHandle();
+                logger.debug("Reusing Selenium session {}", driver.getSessionId());
+                return driver;
+            } catch (WebDriverException e) {
+                logger.debug("Discarding Selenium session {}: {}", driver.getSessionId(), e.getMessage());
+                quit(driver);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Releases a session at the end of a scenario. It is reset and kept for reuse if enabled, else it is quit.
+     *
+     * @param key    grid and browser the session was created for
+     * @param driver session to release
+     */
+    public void release(String key, RemoteWebDriver driver) {
+        if (driver == null) {
+            return;
+        }
+        if (!isReuseEnabled() || !reset(driver)) {
+            quit(driver);
+            return;
+        }
+        int poolSize = Integer.parseInt(System.getProperty("SELENIUM_SESSION_POOL_SIZE", "5"));
+        synchronized (this) {
+            Deque<RemoteWebDriver> drivers = idleDrivers.computeIfAbsent(key, k -> new ArrayDeque<>());
+            if (drivers.size() < poolSize) {
+                drivers.addFirst(driver);
+                return;
+            }
+        }
+        quit(driver);
+    }
+
+    /**
+     * Quits all the idle sessions.
+     */
+    public void close() {
+        List<RemoteWebDriver> drivers = new ArrayList<>();
+        synchronized (this) {
+            for (Deque<RemoteWebDriver> idle : idleDrivers.values()) {
+                drivers.addAll(idle);
+            }
+            idleDrivers.clear();
+        }
+        for (RemoteWebDriver driver : drivers) {
+            quit(driver);
+        }
+    }
+
+    private synchronized RemoteWebDriver pollIdle(String key) {
+        Deque<RemoteWebDriver> drivers = idleDrivers.get(key);
+        return drivers == null ? null : drivers.pollFirst();
+    }
+
+    private boolean reset(RemoteWebDriver driver) {
+        try {
+            Set<String> handles = driver.getWindowHandles();
+            String remaining = null;
+            for (String handle : handles) {
+                if (remaining == null) {
+                    remaining = handle;
+                } else {
+                    driver.switchTo().window(handle);
+                    driver.close();
+                }
+            }
+            if (remaining == null) {
+                return false;
+            }
+            driver.switchTo().window(remaining);
+            driver.manage().deleteAllCookies();
+            driver.executeScript("try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}");
+            driver.get("about:blank");
+            return true;
+        } catch (WebDriverException e) {
+            logger.debug("Unable to reset Selenium session {}: {}", driver.getSessionId(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void quit(RemoteWebDriver driver) {
+        try {
+            driver.quit();
+        } catch (WebDriverException e) {
+            logger.debug("Error quitting Selenium session: {}", e.getMessage());
+        }
+    }
+}
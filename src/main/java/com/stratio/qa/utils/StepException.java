@@ -22,13 +22,14 @@ package com.stratio.qa.utils;
 public enum StepException {
     INSTANCE;
 
-    private Exception exception = null;
+    // Scenarios may run in parallel, each worker keeps its own failed step
+    private final ThreadLocal<Exception> exception = new ThreadLocal<>();
 
     public Exception getException() {
-        return exception;
+        return exception.get();
     }
 
     public void setException(Exception e) {
-        exception = e;
+        exception.set(e);
     }
 }
\ No newline at end of file
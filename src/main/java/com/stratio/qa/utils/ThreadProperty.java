@@ -58,4 +58,26 @@ public final class ThreadProperty {
         PROPS.get().remove(key);
     }
 
+    /**
+     * Get a copy of all the properties shared in the current thread.
+     *
+     * @return Properties
+     */
+    public static Properties getAll() {
+        Properties copy = new Properties();
+        copy.putAll(PROPS.get());
+        return copy;
+    }
+
+    /**
+     * Replace the properties shared in the current thread with a copy of the given ones.
+     *
+     * @param props
+     */
+    public static void setAll(Properties props) {
+        Properties copy = new Properties();
+        copy.putAll(props);
+        PROPS.set(copy);
+    }
+
 }
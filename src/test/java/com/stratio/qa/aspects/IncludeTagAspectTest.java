@@ -62,6 +62,20 @@ public class IncludeTagAspectTest {
         assertThatExceptionOfType(IncludeException.class).isThrownBy(() -> inctag.doReplaceKeys(keysNotReplaced, keys));
     }
 
+    @Test
+    public void testDoReplaceKeysLiteralValues() throws IncludeException {
+        String keysNotReplaced = "Given that <time1> is not equal to <time2> into a step";
+        String[] keys = {"<time1>", "${VAR}", "<time2>", "a$1\\b"};
+        assertThat(inctag.doReplaceKeys(keysNotReplaced, keys)).as("Test that values are replaced literally").isEqualTo("Given that ${VAR} is not equal to a$1\\b into a step");
+    }
+
+    @Test
+    public void testFeatureStepConverterCached() throws IncludeException {
+        String steps = inctag.featureStepConverter("src/test/resources/features/logger.feature", "Some simple request", null);
+        assertThat(steps).as("Test that included steps are returned").isNotEmpty();
+        assertThat(inctag.featureStepConverter("src/test/resources/features/logger.feature", "Some simple request", null)).as("Test that expanded scenario is reused").isSameAs(steps);
+    }
+
     @Test
     public void testCheckParams() throws IncludeException {
         String lineOfParams = "| hey | ho |";
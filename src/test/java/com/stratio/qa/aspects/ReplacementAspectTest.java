@@ -152,4 +152,27 @@ public class ReplacementAspectTest {
         assertThat(repAspect.replaceEnvironmentPlaceholders("${STRATIOBDD_ENV2:-{}}", pjp)).as("Unexpected replacement").isEqualTo("{}");
         assertThat(repAspect.replaceEnvironmentPlaceholders("${STRATIOBDD_ENV2:-[]}", pjp)).as("Unexpected replacement").isEqualTo("[]");
     }
+
+    @Test
+    public void replaceCompiledPlaceholdersTest() throws Exception {
+        ThreadProperty.set("class", this.getClass().getCanonicalName());
+        ThreadProperty.set("STRATIOBDD_LOCAL2", "LOCAL");
+        ProceedingJoinPoint pjp = null;
+        ReplacementAspect repAspect = new ReplacementAspect();
+        System.setProperty("STRATIOBDD_ENV8", "aa");
+        System.setProperty("STRATIOBDD_ENV9", "!{STRATIOBDD_LOCAL2}");
+
+        String mixed = "|${STRATIOBDD_ENV8.toUpper}|!{STRATIOBDD_LOCAL2}|@{JSON.schemas/simple1.json}|";
+        assertThat(repAspect.replacedElement(mixed, pjp)).isEqualTo("|AA|LOCAL|{\"a\":true}|");
+        ThreadProperty.set("STRATIOBDD_LOCAL2", "OTHER");
+        assertThat(repAspect.replacedElement(mixed, pjp)).as("Cached template must use current values").isEqualTo("|AA|OTHER|{\"a\":true}|");
+        assertThat(repAspect.replacedElement("no placeholders", pjp)).isEqualTo("no placeholders");
+        assertThat(repAspect.replacedElement("${STRATIOBDD_ENV8}:${STRATIOBDD_ENV8}", pjp)).isEqualTo("aa:aa");
+        assertThat(repAspect.replacedElement("${STRATIOBDD_ENV9}", pjp)).as("Replaced values are replaced again").isEqualTo("OTHER");
+        ThreadProperty.set("aa", "NESTED");
+        assertThat(repAspect.replacedElement("!{${STRATIOBDD_ENV8}}", pjp)).as("Nested placeholders are replaced by phases").isEqualTo("NESTED");
+        assertThat(repAspect.replacedElement("${STRATIOBDD_ENV10:-\"\"}", pjp)).isEqualTo("");
+        assertThat(repAspect.replacedElement("${STRATIOBDD_ENV10:-{}}", pjp)).isEqualTo("{}");
+        assertThatExceptionOfType(Exception.class).isThrownBy(() -> repAspect.replacedElement("${STRATIOBDD_ENV8}!{NO_VAL}", pjp));
+    }
 }
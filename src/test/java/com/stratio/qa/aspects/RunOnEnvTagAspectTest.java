@@ -2626,4 +2626,24 @@ public class RunOnEnvTagAspectTest {
         System.clearProperty("HELLO");
         ThreadProperty.remove("BYE");
     }
+
+    @Test
+    public void testShortCircuitEvaluation() throws Exception {
+        System.setProperty("HELLO","OK");
+        System.setProperty("VERSION","1.0.0");
+        assertThat(runontag.checkParams(runontag.getParams("@runOnEnv(HELLO=OK||VERSION>1.0)"))).as("Second condition is not evaluated").isTrue();
+        assertThat(runontag.checkParams(runontag.getParams("@runOnEnv(HELLO=KO&&VERSION>1.0)"))).as("Second condition is not evaluated").isFalse();
+        System.clearProperty("HELLO");
+        System.clearProperty("VERSION");
+    }
+
+    @Test
+    public void testCompiledTagReevaluated() throws Exception {
+        List<PickleTag> tagList = new ArrayList<>();
+        tagList.add(new PickleTag(new PickleLocation(1, 0), "@runOnEnv(CACHED_PARAM)"));
+        assertThat(runontag.tagsIteration(new ArrayList<>(tagList), 1)).isTrue();
+        System.setProperty("CACHED_PARAM", "1");
+        assertThat(runontag.tagsIteration(new ArrayList<>(tagList), 1)).as("Compiled condition uses current values").isFalse();
+        System.clearProperty("CACHED_PARAM");
+    }
 }
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.clients.marathon;
+
+import com.stratio.qa.clients.BaseClientTest;
+import com.stratio.qa.utils.ThreadProperty;
+import org.mockserver.client.MockServerClient;
+import org.testng.annotations.AfterTest;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.BeforeTest;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+public class MarathonEventStreamTest extends BaseClientTest {
+
+    private static final String STATUS_UPDATE = "{\"eventType\":\"status_update_event\",\"appId\":\"/test/app\",\"taskStatus\":\"TASK_RUNNING\"}";
+
+    private MarathonApiClient marathonApiClient;
+
+    protected MarathonApiClient getClient() {
+        setHTTPClient();
+        return MarathonApiClient.getInstance(commong);
+    }
+
+    @BeforeTest
+    public void start() throws Exception {
+        startMockServer();
+        marathonApiClient = getClient();
+        marathonApiClient.setPort(Integer.toString(port));
+    }
+
+    @BeforeMethod
+    public void reset() {
+        new MockServerClient("localhost", port).reset();
+    }
+
+    @Test
+    public void eventsAreParsedTest() {
+        List<MarathonEventStream.Event> events = new ArrayList<>();
+        MarathonEventStream stream = new MarathonEventStream(events::add, null);
+        String data = ": comment\r\nevent: status_update_event\r\ndata: " + STATUS_UPDATE + "\r\n\r\n"
+                + "event: deployment_success\ndata: {\"id\":\"1\",\ndata: \"plan\":{}}\n\ndata: {}\n";
+        byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+        // Events split in several body parts
+        stream.onData(Arrays.copyOfRange(bytes, 0, 40));
+        stream.onData(Arrays.copyOfRange(bytes, 40, bytes.length));
+
+        assertThat(events).extracting("eventType").containsExactly("status_update_event", "deployment_success");
+        assertThat(events.get(0).getData()).isEqualTo(STATUS_UPDATE);
+        assertThat(events.get(1).getData()).isEqualTo("{\"id\":\"1\",\n\"plan\":{}}");
+
+        stream.onData("\n".getBytes(StandardCharsets.UTF_8));
+        assertThat(events).extracting("eventType").containsExactly("status_update_event", "deployment_success", "message");
+    }
+
+    @Test
+    public void eventRefersToAppTest() {
+        MarathonEventStream.Event event = new MarathonEventStream.Event("status_update_event", STATUS_UPDATE);
+
+        assertThat(event.refersTo("test/app")).isTrue();
+        assertThat(event.refersTo("/test/app")).isTrue();
+        assertThat(event.refersTo("test/ap")).isFalse();
+    }
+
+    @Test
+    public void subscribeToEventsTest() throws Exception {
+        ThreadProperty.set("EOS_ACCESS_POINT", "localhost");
+        new MockServerClient("localhost", port)
+            .when(
+                request()
+                    .withMethod("GET")
+                    .withPath("/marathon/v2/events")
+            )
+            .respond(
+                response()
+                    .withStatusCode(200)
+                    .withHeader("Content-Type", "text/event-stream")
+                    .withBody("event: status_update_event\ndata: " + STATUS_UPDATE + "\n\n")
+            );
+
+        List<MarathonEventStream.Event> events = new ArrayList<>();
+        CountDownLatch closed = new CountDownLatch(1);
+        MarathonEventStream stream = marathonApiClient.subscribeToEvents(Arrays.asList("status_update_event"), events::add, closed::countDown);
+
+        assertThat(closed.await(10, TimeUnit.SECONDS)).as("Stream must be closed by the server").isTrue();
+        assertThat(stream.isClosed()).isTrue();
+        assertThat(events).extracting("eventType").containsExactly("status_update_event");
+    }
+
+    @Test
+    public void rejectedSubscriptionTest() throws Exception {
+        ThreadProperty.set("EOS_ACCESS_POINT", "localhost");
+        // Requests without expectation get a 404
+        MarathonEventStream stream = marathonApiClient.subscribeToEvents(Arrays.asList("deployment_success"), event -> { }, null);
+
+        assertThat(stream.awaitConnected(10000)).isFalse();
+        assertThat(stream.isClosed()).isTrue();
+    }
+
+    @AfterTest
+    public void stop() {
+        stopMockServer();
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.cucumber.converter;
+
+import gherkin.events.PickleEvent;
+import gherkin.pickles.Argument;
+import gherkin.pickles.Pickle;
+import gherkin.pickles.PickleCell;
+import gherkin.pickles.PickleLocation;
+import gherkin.pickles.PickleRow;
+import gherkin.pickles.PickleStep;
+import gherkin.pickles.PickleTable;
+import gherkin.pickles.PickleTag;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LoopConverterTest {
+
+    private static final PickleLocation LOCATION = new PickleLocation(1, 0);
+
+    @AfterMethod
+    public void tearDown() {
+        System.clearProperty("LOOP_LIST");
+        System.clearProperty("LOOP_LIST_2");
+    }
+
+    private PickleEvent pickleEvent(String tag, String name, String stepText, String cellValue) {
+        List<Argument> arguments = new ArrayList<>();
+        if (cellValue != null) {
+            arguments.add(new PickleTable(asList(new PickleRow(asList(new PickleCell(LOCATION, cellValue))))));
+        }
+        PickleStep step = new PickleStep(stepText, arguments, asList(LOCATION));
+        List<PickleTag> tags = new ArrayList<>(asList(new PickleTag(LOCATION, tag)));
+        return new PickleEvent("uri", new Pickle(name, "en", asList(step), tags, asList(LOCATION)));
+    }
+
+    private List<String> names(List<PickleEvent> pickleEvents) {
+        List<String> names = new ArrayList<>();
+        for (PickleEvent pickleEvent : pickleEvents) {
+            names.add(pickleEvent.pickle.getName());
+        }
+        return names;
+    }
+
+    @Test
+    public void loopTest() {
+        System.setProperty("LOOP_LIST", "a,b");
+        List<PickleEvent> pickleEvents = LoopConverter.transformPickleEventWithLoopTags(
+                pickleEvent("@loop(LOOP_LIST,VAR)", "Scenario <VAR>", "step <VAR> <VAR.id>", "cell <VAR> <VAR.id>"));
+
+        assertThat(names(pickleEvents)).containsExactly("Scenario a", "Scenario b");
+        PickleStep step = pickleEvents.get(1).pickle.getSteps().get(0);
+        assertThat(step.getText()).isEqualTo("step b 1");
+        assertThat(((PickleTable) step.getArgument().get(0)).getRows().get(0).getCells().get(0).getValue()).isEqualTo("cell b 1");
+    }
+
+    @Test
+    public void loopValuesAreLiteralTest() {
+        System.setProperty("LOOP_LIST", "$1\\a");
+        List<PickleEvent> pickleEvents = LoopConverter.transformPickleEventWithLoopTags(pickleEvent("@loop(LOOP_LIST,VAR)", "Scenario <VAR>", "step", null));
+
+        assertThat(names(pickleEvents)).containsExactly("Scenario $1\\a");
+    }
+
+    @Test
+    public void progLoopTest() {
+        System.setProperty("LOOP_LIST", "3");
+        List<PickleEvent> pickleEvents = LoopConverter.transformPickleEventWithLoopTags(pickleEvent("@progloop(LOOP_LIST,VAR)", "Scenario <VAR>", "step", null));
+
+        assertThat(names(pickleEvents)).containsExactly("Scenario 1", "Scenario 2", "Scenario 3");
+    }
+
+    @Test
+    public void multiLoopTest() {
+        System.setProperty("LOOP_LIST", "a,b");
+        System.setProperty("LOOP_LIST_2", "1,2,3");
+        List<PickleEvent> pickleEvents = LoopConverter.transformPickleEventWithLoopTags(
+                pickleEvent("@multiloop(LOOP_LIST=>VAR,LOOP_LIST_2=>VAR2)", "Scenario <VAR>-<VAR2>", "step", null));
+
+        assertThat(pickleEvents).hasSize(6);
+        assertThat(names(pickleEvents)).containsOnly("Scenario a-1", "Scenario a-2", "Scenario a-3", "Scenario b-1", "Scenario b-2", "Scenario b-3");
+    }
+
+    @Test
+    public void multiLoopIsLazyTest() {
+        System.setProperty("LOOP_LIST", String.join(",", Collections.nCopies(1000, "x")));
+        System.setProperty("LOOP_LIST_2", String.join(",", Collections.nCopies(1000, "y")));
+        Iterator<PickleEvent> pickleEvents = LoopConverter.expandPickleEventWithLoopTags(
+                pickleEvent("@multiloop(LOOP_LIST=>VAR,LOOP_LIST_2=>VAR2)", "Scenario <VAR>-<VAR2>", "step", null));
+
+        assertThat(pickleEvents.next().pickle.getName()).isEqualTo("Scenario x-y");
+        assertThat(pickleEvents.hasNext()).isTrue();
+    }
+
+    @Test
+    public void undefinedLoopVariableTest() {
+        List<PickleEvent> pickleEvents = LoopConverter.transformPickleEventWithLoopTags(pickleEvent("@loop(LOOP_LIST,VAR)", "Scenario <VAR>", "step", null));
+
+        assertThat(pickleEvents).hasSize(1);
+        assertThat(pickleEvents.get(0).pickle.getTags()).extracting(PickleTag::getName)
+                .contains("@error", "@errorMessage(Variable__LOOP_LIST__is__not__defined.)");
+    }
+
+    @Test
+    public void emptyLoopKeepsScenarioTest() {
+        System.setProperty("LOOP_LIST", ",");
+        PickleEvent pickleEvent = pickleEvent("@loop(LOOP_LIST,VAR)", "Scenario <VAR>", "step", null);
+        List<PickleEvent> pickleEvents = LoopConverter.transformPickleEventWithLoopTags(pickleEvent);
+
+        assertThat(pickleEvents).containsExactly(pickleEvent);
+    }
+}
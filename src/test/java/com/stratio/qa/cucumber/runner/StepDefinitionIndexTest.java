@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.qa.cucumber.runner;
+
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StepDefinitionIndexTest {
+
+    @Test
+    public void literalPrefixRegexTest() {
+        assertThat(StepDefinitionIndex.literalPrefix("^I wait '(\\d+)' seconds?$")).isEqualTo("I wait '");
+        assertThat(StepDefinitionIndex.literalPrefix("^I( force)? create '(.+?)'$")).isEqualTo("I");
+        assertThat(StepDefinitionIndex.literalPrefix("^(in less than '(\\d+)' seconds,)? I check$")).isEqualTo("");
+        assertThat(StepDefinitionIndex.literalPrefix("^I send a requests?$")).isEqualTo("I send a request");
+        assertThat(StepDefinitionIndex.literalPrefix("^I send '(GET|POST)' to '(.+?)'$")).isEqualTo("I send '");
+        assertThat(StepDefinitionIndex.literalPrefix("^I send a request|I send nothing$")).isEqualTo("");
+    }
+
+    @Test
+    public void literalPrefixCucumberExpressionTest() {
+        assertThat(StepDefinitionIndex.literalPrefix("topic {string} exists")).isEqualTo("topic");
+        assertThat(StepDefinitionIndex.literalPrefix("I send message {string} to topic {string}")).isEqualTo("I send message");
+        assertThat(StepDefinitionIndex.literalPrefix("I remove/delete topic {string}")).isEqualTo("I ");
+        assertThat(StepDefinitionIndex.literalPrefix("I have cucumber(s)")).isEqualTo("I have cucumber");
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.cucumber.testng;
+
+import cucumber.api.event.TestSourceRead;
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestSourcesModelTest {
+
+    private static final String URI = "file:test.feature";
+
+    private static final String SOURCE = "Feature: Test feature\n"
+            + "\n"
+            + "  Background:\n"
+            + "    Given I run 'ls' locally\n"
+            + "\n"
+            + "  Scenario: Test scenario\r\n"
+            + "    When I wait '1' seconds\n"
+            + "    And I wait '2' seconds";
+
+    private TestSourcesModel model() {
+        TestSourcesModel model = new TestSourcesModel();
+        model.addTestSourceReadEvent(URI, new TestSourceRead(0L, URI, SOURCE));
+        return model;
+    }
+
+    @Test
+    public void lineOffsetsTest() {
+        assertThat(TestSourcesModel.lineOffsets("")).containsExactly(0);
+        assertThat(TestSourcesModel.lineOffsets("a\nbc\n")).containsExactly(0, 2, 5);
+    }
+
+    @Test
+    public void getSourceLineTest() {
+        TestSourcesModel model = model();
+
+        assertThat(model.getSourceLine(URI, 1)).isEqualTo("Feature: Test feature");
+        assertThat(model.getSourceLine(URI, 2)).isEmpty();
+        assertThat(model.getSourceLine(URI, 8)).isEqualTo("    And I wait '2' seconds");
+        assertThat(model.getSourceLine(URI, 9)).isNull();
+        assertThat(model.getSourceLine("file:other.feature", 1)).isNull();
+    }
+
+    @Test
+    public void getKeywordFromSourceTest() {
+        TestSourcesModel model = model();
+
+        assertThat(model.getKeywordFromSource(URI, 4)).isEqualTo("Given ");
+        assertThat(model.getKeywordFromSource(URI, 7)).isEqualTo("When ");
+        assertThat(model.getKeywordFromSource(URI, 8)).isEqualTo("And ");
+        assertThat(model.getKeywordFromSource(URI, 20)).isEmpty();
+    }
+
+    @Test
+    public void getAstNodeTest() {
+        TestSourcesModel model = model();
+
+        assertThat(TestSourcesModel.isBackgroundStep(model.getAstNode(URI, 4))).isTrue();
+        assertThat(TestSourcesModel.isBackgroundStep(model.getAstNode(URI, 7))).isFalse();
+        assertThat(model.getFeatureName(URI)).isEqualTo("Test feature");
+    }
+
+    @Test
+    public void invalidSourceTest() {
+        TestSourcesModel model = new TestSourcesModel();
+        model.addTestSourceReadEvent(URI, new TestSourceRead(0L, URI, "Not a feature"));
+
+        assertThat(model.getFeatureName(URI)).isEmpty();
+        assertThat(model.getAstNode(URI, 1)).isNull();
+        assertThat(model.getKeywordFromSource(URI, 1)).isEmpty();
+    }
+}
@@ -1681,6 +1681,41 @@ public class CommonGTest {
         JSONAssert.assertEquals(expectedData, modifiedData, false);
     }
 
+    @Test
+    public void modifyDataMultipleModificationsTest() throws Exception {
+        ThreadProperty.set("class", this.getClass().getCanonicalName());
+        CommonG commong = new CommonG();
+        String data = "{\"key1\":\"value1\",\"key2\":{\"key3\":null,\"key4\":\"value4\"},\"key5\":[1,2]}";
+        String expectedData = "{\"key1\":\"prefix-value1-suffix\",\"key2\":{\"key3\":null,\"key4\":null,\"key6\":{\"key7\":[\"value7\",\"value8\"]}},\"key5\":[1,2,3]}";
+        String type = "json";
+        List<List<String>> rawData = Arrays.asList(
+                Arrays.asList("key1", "APPEND", "-suffix", "string"),
+                Arrays.asList("key1", "PREPEND", "prefix-", "string"),
+                Arrays.asList("key2.key4", "REPLACE", "null", "null"),
+                Arrays.asList("key2.key6", "ADD", "{\"key7\":[\"value7\"]}", "object"),
+                Arrays.asList("key2.key6.key7", "ADDTO", "value8", "string"),
+                Arrays.asList("key5", "ADDTO", "3", "number"));
+        DataTable modifications = DataTable.create(rawData);
+
+        String modifiedData = commong.modifyData(data, type, modifications);
+        JSONAssert.assertEquals(expectedData, modifiedData, true);
+    }
+
+    @Test
+    public void modifyDataArrayMultipleModificationsTest() throws Exception {
+        String data = "[{\"id\":1,\"name\":\"name\",\"description\":null}]";
+        String expectedData = "[{\"id\":1,\"name\":\"newname\",\"description\":null,\"enabled\":true}]";
+        CommonG commong = new CommonG();
+
+        String type = "json";
+        List<List<String>> rawData = Arrays.asList(Arrays.asList("$.[0].name", "UPDATE", "newname", "string"),
+                Arrays.asList("$.[0].enabled", "ADD", "true", "boolean"));
+        DataTable modifications = DataTable.create(rawData);
+
+        String modifiedData = commong.modifyData(data, type, modifications);
+        JSONAssert.assertEquals(expectedData, modifiedData, true);
+    }
+
     @Test
     public void csvTest() throws Exception {
         ThreadProperty.set("class", this.getClass().getCanonicalName());
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import com.ning.http.client.AsyncHttpClient;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AsyncHttpClientUtilTest {
+
+    @AfterMethod
+    public void tearDown() {
+        System.clearProperty("REST_CLIENT_POOLING");
+        AsyncHttpClientUtil.INSTANCE.close();
+    }
+
+    @Test
+    public void sharedClientIsReusedTest() {
+        AsyncHttpClient client = AsyncHttpClientUtil.INSTANCE.getClient();
+        AsyncHttpClientUtil.INSTANCE.releaseClient(client);
+
+        assertThat(client.isClosed()).as("Shared client must be kept open").isFalse();
+        assertThat(client.getConfig().isAllowPoolingConnections()).as("Shared client must pool connections").isTrue();
+        assertThat(AsyncHttpClientUtil.INSTANCE.getClient()).as("Shared client must be reused").isSameAs(client);
+    }
+
+    @Test
+    public void sharedClientIsRecreatedAfterCloseTest() {
+        AsyncHttpClient client = AsyncHttpClientUtil.INSTANCE.getClient();
+        AsyncHttpClientUtil.INSTANCE.close();
+
+        assertThat(client.isClosed()).isTrue();
+        assertThat(AsyncHttpClientUtil.INSTANCE.getClient()).isNotSameAs(client);
+    }
+
+    @Test
+    public void nonPooledClientIsClosedOnReleaseTest() {
+        System.setProperty("REST_CLIENT_POOLING", "false");
+        AsyncHttpClient client = AsyncHttpClientUtil.INSTANCE.getClient();
+
+        assertThat(client.getConfig().isAllowPoolingConnections()).isFalse();
+        AsyncHttpClientUtil.INSTANCE.releaseClient(client);
+        assertThat(client.isClosed()).as("Non pooled client must be closed on release").isTrue();
+    }
+}
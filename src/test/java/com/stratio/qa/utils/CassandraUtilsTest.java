@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.CodecRegistry;
+import com.datastax.driver.core.ColumnMetadata;
+import com.datastax.driver.core.Configuration;
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.KeyspaceMetadata;
+import com.datastax.driver.core.Metadata;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.SimpleStatement;
+import com.datastax.driver.core.TableMetadata;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CassandraUtilsTest {
+
+    private static final Map<String, Object> ROW = Collections.singletonMap("id", "1");
+
+    private Metadata metadata;
+
+    private Session session;
+
+    private CassandraUtils cassandraUtils;
+
+    @BeforeMethod
+    public void setUp() {
+        metadata = mock(Metadata.class);
+        Configuration configuration = mock(Configuration.class);
+        when(configuration.getCodecRegistry()).thenReturn(new CodecRegistry());
+        Cluster cluster = mock(Cluster.class);
+        when(cluster.getMetadata()).thenReturn(metadata);
+        when(cluster.getConfiguration()).thenReturn(configuration);
+
+        PreparedStatement prepared = mock(PreparedStatement.class);
+        when(prepared.bind()).thenReturn(mock(BoundStatement.class));
+        session = mock(Session.class);
+        when(session.prepare(anyString())).thenReturn(prepared);
+
+        addTable("ks_a", "users");
+        addTable("ks_b", "users");
+        cassandraUtils = new CassandraUtils(cluster, session);
+    }
+
+    private void addTable(String keyspace, String table) {
+        ColumnMetadata column = mock(ColumnMetadata.class);
+        when(column.getType()).thenReturn(DataType.cint());
+        TableMetadata tableMetadata = mock(TableMetadata.class);
+        when(tableMetadata.getName()).thenReturn(table);
+        when(tableMetadata.getColumn("id")).thenReturn(column);
+        KeyspaceMetadata keyspaceMetadata = mock(KeyspaceMetadata.class);
+        when(keyspaceMetadata.getName()).thenReturn(keyspace);
+        when(keyspaceMetadata.getTable(table)).thenReturn(tableMetadata);
+        when(metadata.getKeyspace(keyspace)).thenReturn(keyspaceMetadata);
+    }
+
+    @Test
+    public void insertIsPreparedWithKeyspaceTest() {
+        cassandraUtils.insertData("ks_a.users", ROW);
+
+        verify(session).prepare("INSERT INTO ks_a.users (id) VALUES (?);");
+    }
+
+    @Test
+    public void insertFollowsLoggedKeyspaceTest() {
+        when(session.getLoggedKeyspace()).thenReturn("ks_a");
+        cassandraUtils.insertData("users", ROW);
+        when(session.getLoggedKeyspace()).thenReturn("ks_b");
+        cassandraUtils.insertData("users", ROW);
+
+        verify(session).prepare("INSERT INTO ks_a.users (id) VALUES (?);");
+        verify(session).prepare("INSERT INTO ks_b.users (id) VALUES (?);");
+    }
+
+    @Test
+    public void insertIntoUnknownTableUsesPlainQueryTest() {
+        cassandraUtils.insertData("ks_c.users", ROW);
+
+        verify(session, never()).prepare(anyString());
+        verify(session).execute(any(SimpleStatement.class));
+    }
+}
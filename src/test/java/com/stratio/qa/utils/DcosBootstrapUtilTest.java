@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DcosBootstrapUtilTest {
+
+    @AfterMethod
+    public void tearDown() {
+        System.clearProperty("DCOS_BOOTSTRAP_CACHE");
+        System.clearProperty("SSO_TOKEN_CACHE_TTL");
+        DcosBootstrapUtil.INSTANCE.invalidate();
+        ThreadProperty.remove("DCOS_IP");
+    }
+
+    private DcosBootstrapUtil.Snapshot load(AtomicInteger loads) {
+        loads.incrementAndGet();
+        Properties before = ThreadProperty.getAll();
+        if (ThreadProperty.get("DCOS_IP") == null) {
+            ThreadProperty.set("DCOS_IP", "10.0.0." + loads.get());
+        }
+        Properties changed = DcosBootstrapUtil.Snapshot.changedProperties(before, ThreadProperty.getAll());
+        return new DcosBootstrapUtil.Snapshot(changed, Collections.emptyList(), "https://", "eos.example.com", ":443");
+    }
+
+    @Test
+    public void snapshotIsLoadedOnceTest() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        DcosBootstrapUtil.Snapshot snapshot = DcosBootstrapUtil.INSTANCE.getSnapshot(() -> load(loads));
+
+        assertThat(DcosBootstrapUtil.INSTANCE.getSnapshot(() -> load(loads))).isSameAs(snapshot);
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(snapshot.getProperties().getProperty("DCOS_IP")).isEqualTo("10.0.0.1");
+        assertThat(snapshot.getRestHost()).isEqualTo("eos.example.com");
+    }
+
+    @Test
+    public void invalidatedSnapshotIsLoadedAgainTest() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        DcosBootstrapUtil.INSTANCE.getSnapshot(() -> load(loads));
+        DcosBootstrapUtil.INSTANCE.invalidate();
+        DcosBootstrapUtil.Snapshot snapshot = DcosBootstrapUtil.INSTANCE.getSnapshot(() -> load(loads));
+
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(snapshot.getProperties().getProperty("DCOS_IP")).as("Previous values must not be reused").isEqualTo("10.0.0.2");
+    }
+
+    @Test
+    public void failedLoadIsNotCachedTest() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        try {
+            DcosBootstrapUtil.INSTANCE.getSnapshot(() -> {
+                throw new Exception("Bootstrap not reachable");
+            });
+        } catch (Exception e) {
+            assertThat(e).hasMessage("Bootstrap not reachable");
+        }
+        DcosBootstrapUtil.INSTANCE.getSnapshot(() -> load(loads));
+
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void snapshotIsNotCachedIfDisabledTest() throws Exception {
+        System.setProperty("DCOS_BOOTSTRAP_CACHE", "false");
+        AtomicInteger loads = new AtomicInteger();
+        DcosBootstrapUtil.INSTANCE.getSnapshot(() -> load(loads));
+        DcosBootstrapUtil.INSTANCE.getSnapshot(() -> load(loads));
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void expiredSnapshotIsLoadedAgainTest() throws Exception {
+        System.setProperty("SSO_TOKEN_CACHE_TTL", "0");
+        AtomicInteger loads = new AtomicInteger();
+        DcosBootstrapUtil.INSTANCE.getSnapshot(() -> load(loads));
+        DcosBootstrapUtil.INSTANCE.getSnapshot(() -> load(loads));
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void snapshotIsInvalidatedByRestHostTest() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        DcosBootstrapUtil.INSTANCE.getSnapshot(() -> load(loads));
+        DcosBootstrapUtil.INSTANCE.invalidate("other.example.com");
+        DcosBootstrapUtil.INSTANCE.getSnapshot(() -> load(loads));
+
+        assertThat(loads.get()).isEqualTo(1);
+
+        DcosBootstrapUtil.INSTANCE.invalidate("eos.example.com");
+        DcosBootstrapUtil.INSTANCE.getSnapshot(() -> load(loads));
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void snapshotPropertiesAreRestoredTest() {
+        Properties before = new Properties();
+        before.setProperty("BOOTSTRAP_IP", "10.0.0.10");
+        Properties after = new Properties();
+        after.setProperty("BOOTSTRAP_IP", "10.0.0.10");
+        after.setProperty("DCOS_IP", "10.0.0.1");
+        DcosBootstrapUtil.Snapshot snapshot = new DcosBootstrapUtil.Snapshot(DcosBootstrapUtil.Snapshot.changedProperties(before, after), null, null, null, null);
+        snapshot.restoreProperties();
+
+        assertThat(snapshot.getProperties().stringPropertyNames()).containsOnly("DCOS_IP");
+        assertThat(snapshot.getCookies()).isEmpty();
+        assertThat(ThreadProperty.get("DCOS_IP")).isEqualTo("10.0.0.1");
+    }
+}
@@ -25,9 +25,11 @@ import org.testng.annotations.Test;
 
 import java.io.IOException;
 import java.net.UnknownHostException;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
@@ -147,4 +149,24 @@ public class ElasticSearchUtilsIT {
             ex.printStackTrace();
         }
     }
+
+    @Test
+    public void indexDocumentsAndScrollTest() throws Exception {
+        es_utils.connect();
+        if (es_utils.indexExists("testindex")) {
+            es_utils.dropSingleIndex("testindex");
+        }
+        es_utils.createSingleIndex("testindex");
+        List<Map.Entry<String, String>> documents = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            documents.add(new AbstractMap.SimpleEntry<>(String.valueOf(i), "{\"ident\": " + i + ", \"name\": \"bulk\"}"));
+        }
+        es_utils.indexDocuments("testindex", documents);
+        Thread.sleep(2000);
+        List<JSONObject> results = es_utils.searchSimpleFilterElasticsearchQuery("testindex",
+                "name", "bulk",
+                "equals");
+        assertThat(results.size()).isEqualTo(2500);
+        es_utils.getClient().close();
+    }
 }
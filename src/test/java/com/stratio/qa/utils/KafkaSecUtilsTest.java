@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class KafkaSecUtilsTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("topic", 0);
+
+    private MockConsumer<String, String> consumer;
+
+    @BeforeMethod
+    public void setUp() {
+        consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.assign(asList(PARTITION));
+        consumer.updateBeginningOffsets(Collections.singletonMap(PARTITION, 0L));
+    }
+
+    private void addRecords(long firstOffset, String... values) {
+        for (int i = 0; i < values.length; i++) {
+            consumer.addRecord(new ConsumerRecord<>(PARTITION.topic(), PARTITION.partition(), firstOffset + i, null, values[i]));
+        }
+    }
+
+    @Test
+    public void pollUntilMessageSeenTest() {
+        addRecords(0, "a", "b");
+        consumer.schedulePollTask(() -> addRecords(2, "c"));
+        Set<String> pending = new HashSet<>(asList("c"));
+
+        long count = KafkaSecUtils.pollUntil(consumer, 5000, pending, 0);
+
+        assertThat(pending).isEmpty();
+        assertThat(count).isEqualTo(3);
+    }
+
+    @Test
+    public void pollUntilCountReachedTest() {
+        addRecords(0, "a", "b", "c");
+        Set<String> pending = new HashSet<>();
+
+        assertThat(KafkaSecUtils.pollUntil(consumer, 5000, pending, 2)).isEqualTo(3);
+    }
+
+    @Test
+    public void pollUntilTimeoutTest() {
+        addRecords(0, "a");
+        Set<String> pending = new HashSet<>(asList("z"));
+
+        long start = System.currentTimeMillis();
+        long count = KafkaSecUtils.pollUntil(consumer, 200, pending, 0);
+
+        assertThat(System.currentTimeMillis() - start).isLessThan(5000);
+        assertThat(count).isEqualTo(1);
+        assertThat(pending).containsExactly("z");
+    }
+
+    @Test
+    public void pollToEndCountsExistingRecordsTest() {
+        addRecords(0, "a", "b", "c");
+        consumer.updateEndOffsets(Collections.singletonMap(PARTITION, 3L));
+        Set<String> pending = new HashSet<>();
+
+        assertThat(KafkaSecUtils.pollToEnd(consumer, 5000, pending, 0)).isEqualTo(3);
+    }
+
+    @Test
+    public void pollToEndWaitsForMinRecordsTest() {
+        addRecords(0, "a");
+        consumer.updateEndOffsets(Collections.singletonMap(PARTITION, 1L));
+        consumer.schedulePollTask(() -> { });
+        consumer.schedulePollTask(() -> addRecords(1, "b"));
+        Set<String> pending = new HashSet<>(asList("b"));
+
+        long count = KafkaSecUtils.pollToEnd(consumer, 5000, pending, 2);
+
+        assertThat(count).isEqualTo(2);
+        assertThat(pending).isEmpty();
+    }
+}
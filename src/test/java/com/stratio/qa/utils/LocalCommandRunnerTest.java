@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LocalCommandRunnerTest {
+
+    @Test
+    public void outputAndExitStatusTest() throws Exception {
+        List<String> lines = new ArrayList<>();
+        LocalCommandRunner.Result result = new LocalCommandRunner(0, 1024).run("echo; echo a; echo b; echo error >&2; exit 3", lines::add);
+
+        assertThat(result.getOutput()).isEqualTo("a\nb");
+        assertThat(result.getError()).isEqualTo("error");
+        assertThat(result.getExitStatus()).isEqualTo(3);
+        assertThat(result.isTimedOut()).isFalse();
+        assertThat(lines).containsExactly("", "a", "b");
+    }
+
+    @Test(timeOut = 30000)
+    public void inputTest() throws Exception {
+        LocalCommandRunner.Result result = new LocalCommandRunner(0, 1024).run("grep b", "a\nb1\nc\nb2", null);
+
+        assertThat(result.getOutput()).isEqualTo("b1\nb2");
+        assertThat(new LocalCommandRunner(0, 1024).run("echo done", "ignored input", null).getOutput()).isEqualTo("done");
+    }
+
+    @Test(timeOut = 30000)
+    public void largeOutputTest() throws Exception {
+        LocalCommandRunner.Result result = new LocalCommandRunner(0, 1024 * 1024)
+                .run("seq 1 100000; seq 1 100000 >&2", null);
+
+        assertThat(result.getExitStatus()).isEqualTo(0);
+        assertThat(result.getOutput()).startsWith("1\n2\n").endsWith("\n100000");
+        assertThat(result.getError()).endsWith("\n100000");
+    }
+
+    @Test(timeOut = 30000)
+    public void outputIsTruncatedTest() throws Exception {
+        LocalCommandRunner.Result result = new LocalCommandRunner(0, 10).run("seq 1 100000", null);
+
+        assertThat(result.getExitStatus()).isEqualTo(0);
+        assertThat(result.getOutput()).isEqualTo("1\n2\n3\n4\n5");
+    }
+
+    @Test(timeOut = 30000)
+    public void timeoutTest() throws Exception {
+        LocalCommandRunner.Result result = new LocalCommandRunner(500, 1024).run("echo started; exec sleep 60", null);
+
+        assertThat(result.isTimedOut()).isTrue();
+        assertThat(result.getExitStatus()).isEqualTo(-1);
+        assertThat(result.getOutput()).isEqualTo("started");
+    }
+
+    @Test(timeOut = 30000)
+    public void timeoutWithUnreadInputTest() throws Exception {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            input.append("line ").append(i).append('\n');
+        }
+        LocalCommandRunner.Result result = new LocalCommandRunner(500, 1024).run("exec sleep 60", input.toString(), null);
+
+        assertThat(result.isTimedOut()).isTrue();
+    }
+}
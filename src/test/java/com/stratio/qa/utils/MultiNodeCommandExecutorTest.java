@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MultiNodeCommandExecutorTest {
+
+    @Test
+    public void resultsOfEveryNodeAreKeptTest() throws Exception {
+        MultiNodeCommandExecutor executor = new MultiNodeCommandExecutor(2, 0);
+        MultiNodeCommandExecutor.NodeTask task = node -> {
+            if (node.equals("10.0.0.2")) {
+                throw new Exception("Connection refused");
+            }
+            return new RemoteSSHConnection.CommandResult("output " + node, node.equals("10.0.0.3") ? 1 : 0);
+        };
+        List<MultiNodeCommandExecutor.NodeResult> results = executor.execute(Arrays.asList("10.0.0.1", "10.0.0.2", "10.0.0.3"), task);
+
+        assertThat(results).extracting("node").containsExactly("10.0.0.1", "10.0.0.2", "10.0.0.3");
+        assertThat(results).extracting("exitStatus").containsExactly(0, -1, 1);
+        assertThat(results.get(0).getOutput()).isEqualTo("output 10.0.0.1");
+        assertThat(results.get(0).getError()).isNull();
+        assertThat(results.get(1).getError()).isEqualTo("Connection refused");
+        assertThat(results.get(1).isTimedOut()).isFalse();
+    }
+
+    @Test
+    public void parallelismIsBoundedTest() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        MultiNodeCommandExecutor executor = new MultiNodeCommandExecutor(2, 0);
+        MultiNodeCommandExecutor.NodeTask task = node -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            running.decrementAndGet();
+            return new RemoteSSHConnection.CommandResult("", 0);
+        };
+        executor.execute(Arrays.asList("a", "b", "c", "d", "e"), task);
+
+        assertThat(maxRunning.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void slowNodeIsInterruptedTest() throws Exception {
+        MultiNodeCommandExecutor executor = new MultiNodeCommandExecutor(2, 200);
+        MultiNodeCommandExecutor.NodeTask task = node -> {
+            if (node.equals("slow")) {
+                Thread.sleep(60000);
+            }
+            return new RemoteSSHConnection.CommandResult("done", 0);
+        };
+        long start = System.currentTimeMillis();
+        List<MultiNodeCommandExecutor.NodeResult> results = executor.execute(Arrays.asList("fast", "slow"), task);
+
+        assertThat(System.currentTimeMillis() - start).isLessThan(10000);
+        assertThat(results.get(0).isTimedOut()).isFalse();
+        assertThat(results.get(0).getOutput()).isEqualTo("done");
+        assertThat(results.get(1).isTimedOut()).isTrue();
+        assertThat(results.get(1).getExitStatus()).isEqualTo(-1);
+    }
+}
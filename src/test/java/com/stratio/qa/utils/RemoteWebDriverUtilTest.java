@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RemoteWebDriverUtilTest {
+
+    private static final String KEY = "http://grid:4444/wd/hub#chrome_64#null";
+
+    @AfterMethod
+    public void tearDown() {
+        RemoteWebDriverUtil.INSTANCE.close();
+        System.clearProperty("SELENIUM_SESSION_REUSE");
+        System.clearProperty("SELENIUM_SESSION_POOL_SIZE");
+    }
+
+    private RemoteWebDriver driver() {
+        RemoteWebDriver driver = mock(RemoteWebDriver.class);
+        when(driver.getWindowHandles()).thenReturn(Collections.singleton("window"));
+        when(driver.manage()).thenReturn(mock(WebDriver.Options.class));
+        when(driver.switchTo()).thenReturn(mock(WebDriver.TargetLocator.class));
+        return driver;
+    }
+
+    @Test
+    public void sessionIsQuitWithoutReuseTest() {
+        RemoteWebDriver driver = driver();
+        RemoteWebDriverUtil.INSTANCE.release(KEY, driver);
+
+        verify(driver).quit();
+        assertThat(RemoteWebDriverUtil.INSTANCE.acquire(KEY)).isNull();
+    }
+
+    @Test
+    public void sessionIsResetAndReusedTest() {
+        System.setProperty("SELENIUM_SESSION_REUSE", "true");
+        RemoteWebDriver driver = driver();
+        RemoteWebDriverUtil.INSTANCE.release(KEY, driver);
+
+        verify(driver, never()).quit();
+        verify(driver).get("about:blank");
+        assertThat(RemoteWebDriverUtil.INSTANCE.acquire("http://grid:4444/wd/hub#firefox_60#null")).isNull();
+        assertThat(RemoteWebDriverUtil.INSTANCE.acquire(KEY)).isSameAs(driver);
+        assertThat(RemoteWebDriverUtil.INSTANCE.acquire(KEY)).isNull();
+    }
+
+    @Test
+    public void deadSessionIsDiscardedTest() {
+        System.setProperty("SELENIUM_SESSION_REUSE", "true");
+        RemoteWebDriver driver = driver();
+        RemoteWebDriverUtil.INSTANCE.release(KEY, driver);
+        when(driver.getWindowHandle()).thenThrow(new WebDriverException("Session timed out"));
+
+        assertThat(RemoteWebDriverUtil.INSTANCE.acquire(KEY)).isNull();
+        verify(driver).quit();
+    }
+
+    @Test
+    public void poolSizeIsLimitedTest() {
+        System.setProperty("SELENIUM_SESSION_REUSE", "true");
+        System.setProperty("SELENIUM_SESSION_POOL_SIZE", "1");
+        RemoteWebDriver first = driver();
+        RemoteWebDriver second = driver();
+        RemoteWebDriverUtil.INSTANCE.release(KEY, first);
+        RemoteWebDriverUtil.INSTANCE.release(KEY, second);
+
+        verify(first, never()).quit();
+        verify(second).quit();
+        RemoteWebDriverUtil.INSTANCE.close();
+        verify(first).quit();
+    }
+}